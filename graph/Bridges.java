@@ -0,0 +1,173 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import util.GraphLoader;
+
+/**
+ * Bridges and articulation points of an undirected CSRGraph.
+ * A bridge is an edge whose removal disconnects the graph, and an
+ * articulation point is a vertex whose removal does. Both fall out of
+ * one depth-first search with Tarjan's low-link values in O(n + m).
+ * The search keeps its own stack and a per-vertex position in the
+ * adjacency, so deep graphs cannot overflow the call stack.
+ */
+public class Bridges {
+    private final CSRGraph g;
+    private final boolean[] articulation;
+    // bridge i is from[i] - to[i], where to[i] is the DFS child
+    private int[] from = new int[16];
+    private int[] to = new int[16];
+    // vertices on the to[i] side, and in the whole component
+    private int[] side = new int[16];
+    private int[] component = new int[16];
+    private int count = 0;
+
+    public Bridges(CSRGraph g) {
+        this.g = g;
+        int n = g.size();
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+        articulation = new boolean[n];
+
+        int[] disc = new int[n];
+        int[] low = new int[n];
+        int[] parent = new int[n];
+        int[] next = new int[n];
+        int[] size = new int[n];
+        int[] stack = new int[n];
+        Arrays.fill(disc, -1);
+        int time = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (disc[root] != -1) {
+                continue;
+            }
+            int first = count;
+            int children = 0;
+            int top = 0;
+            stack[top++] = root;
+            parent[root] = -1;
+            disc[root] = low[root] = time++;
+            next[root] = offsets[root];
+            size[root] = 1;
+
+            while (top > 0) {
+                int u = stack[top - 1];
+                if (next[u] < offsets[u + 1]) {
+                    int v = targets[next[u]++];
+                    if (disc[v] == -1) {
+                        parent[v] = u;
+                        disc[v] = low[v] = time++;
+                        next[v] = offsets[v];
+                        size[v] = 1;
+                        stack[top++] = v;
+                        if (u == root) {
+                            children++;
+                        }
+                    } else if (v != parent[u]) {
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                // u is finished; report what it says about its parent
+                top--;
+                int p = parent[u];
+                if (p == -1) {
+                    continue;
+                }
+                low[p] = Math.min(low[p], low[u]);
+                size[p] += size[u];
+                if (low[u] > disc[p]) {
+                    addBridge(p, u, size[u]);
+                }
+                if (p != root && low[u] >= disc[p]) {
+                    articulation[p] = true;
+                }
+            }
+            articulation[root] = children > 1;
+            for (int i = first; i < count; i++) {
+                component[i] = size[root];
+            }
+        }
+    }
+
+    private void addBridge(int u, int v, int vSide) {
+        if (count == from.length) {
+            from = Arrays.copyOf(from, 2 * count);
+            to = Arrays.copyOf(to, 2 * count);
+            side = Arrays.copyOf(side, 2 * count);
+            component = Arrays.copyOf(component, 2 * count);
+        }
+        from[count] = u;
+        to[count] = v;
+        side[count] = vSide;
+        count++;
+    }
+
+    public int bridgeCount() {
+        return count;
+    }
+
+    /* Endpoints of bridge i, as dense indices. */
+    public int[] bridge(int i) {
+        return new int[] { from[i], to[i] };
+    }
+
+    /* Vertices on the smaller side of bridge i once it is cut. */
+    public int smallerSide(int i) {
+        return Math.min(side[i], component[i] - side[i]);
+    }
+
+    public boolean isArticulationPoint(int u) {
+        return articulation[u];
+    }
+
+    /* Dense indices of all articulation points. */
+    public int[] articulationPoints() {
+        int size = 0;
+        int[] ret = new int[g.size()];
+        for (int u = 0; u < g.size(); u++) {
+            if (articulation[u]) {
+                ret[size++] = u;
+            }
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    /**
+     * Prints a single point of failure report: the bridges that split
+     * off the most vertices, and the articulation points.
+     */
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        long start = System.nanoTime();
+        final Bridges b = new Bridges(csr);
+        long nanos = System.nanoTime() - start;
+
+        int[] points = b.articulationPoints();
+        System.out.printf("%d bridges and %d articulation points among %d vertices (%.1f ms)%n",
+                b.bridgeCount(), points.length, csr.size(), nanos / 1e6);
+
+        List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < b.bridgeCount(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, (x, y) -> b.smallerSide(y) - b.smallerSide(x));
+        for (int i = 0; i < Math.min(10, order.size()); i++) {
+            int[] edge = b.bridge(order.get(i));
+            System.out.println(csr.id(edge[0]) + " - " + csr.id(edge[1])
+                    + ": cuts off " + b.smallerSide(order.get(i)) + " vertices");
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Compressed sparse row snapshot of a CapGraph.
+ * Vertices are renumbered to dense indices 0..n-1 in ascending order
+ * of their original value, and every adjacency list is stored sorted
+ * in one shared int array. Algorithms that only need to walk the
+ * adjacency can use this instead of chasing Vertex and Edge objects.
+ * Reorder can relabel the indices in another order; ids then keeps the
+ * mapping back to the original values.
+ */
+public class CSRGraph {
+    // ids[u] is the original value of dense vertex u
+    final int[] ids;
+    // neighbors of u are targets[offsets[u]] .. targets[offsets[u + 1] - 1]
+    final int[] offsets;
+    final int[] targets;
+    // dense indices in ascending order of id; null if ids already ascend
+    final int[] byId;
+
+    CSRGraph(int[] ids, int[] offsets, int[] targets) {
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        byId = sortById(ids);
+    }
+
+    /**
+     * Dense indices in ascending order of their ids, for indexOf, or null
+     * if the ids already ascend. Shared with CompressedGraph, whose ids
+     * come from a CSRGraph and may be reordered as well.
+     */
+    static int[] sortById(int[] ids) {
+        boolean ascending = true;
+        for (int u = 1; u < ids.length && ascending; u++) {
+            ascending = ids[u - 1] <= ids[u];
+        }
+        if (ascending) {
+            return null;
+        }
+        long[] keys = new long[ids.length];
+        for (int u = 0; u < ids.length; u++) {
+            keys[u] = ((long) ids[u] << 32) | u;
+        }
+        Arrays.sort(keys);
+        int[] ret = new int[ids.length];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = (int) keys[i];
+        }
+        return ret;
+    }
+
+    /* Dense index of id given ids and their sortById order, or -1. */
+    static int indexOf(int[] ids, int[] byId, int id) {
+        if (byId == null) {
+            int u = Arrays.binarySearch(ids, id);
+            return u < 0 ? -1 : u;
+        }
+        int lo = 0;
+        int hi = byId.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int value = ids[byId[mid]];
+            if (value < id) {
+                lo = mid + 1;
+            } else if (value > id) {
+                hi = mid - 1;
+            } else {
+                return byId[mid];
+            }
+        }
+        return -1;
+    }
+
+    public static CSRGraph fromCapGraph(CapGraph g) {
+        return fromCapGraph(g, false);
+    }
+
+    /**
+     * Builds a snapshot of g. If undirected is set, every edge is stored
+     * in both directions, duplicates are merged and self-loops dropped.
+     * Vertices are numbered by ascending value, so the dense indices of
+     * the snapshot differ from those of g.getVertexIds.
+     */
+    public static CSRGraph fromCapGraph(CapGraph g, boolean undirected) {
+        int n = g.size();
+        int[] ids = g.getVertexIds().ids();
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            m += g.getVertexAt(i).degree();
+        }
+        Arrays.sort(ids);
+        // sorted position of every vertex, by its index in g
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[i] = Arrays.binarySearch(ids, g.getVertexAt(i).getVal());
+        }
+
+        int[] from = new int[m];
+        int[] to = new int[m];
+        m = 0;
+        for (int i = 0; i < n; i++) {
+            Vertex v = g.getVertexAt(i);
+            for (Edge e : v.getEdges()) {
+                Vertex w = e.getOtherVertex(v);
+                from[m] = rank[i];
+                // an edge made through Vertex.addEdge may point elsewhere
+                to[m] = w.index >= 0 && w.index < n && g.getVertexAt(w.index) == w
+                        ? rank[w.index] : Arrays.binarySearch(ids, w.getVal());
+                m++;
+            }
+        }
+        return build(ids, from, to, m, undirected);
+    }
+
+    /**
+     * Builds a CSR graph over ids.length vertices from the first m
+     * (from[i], to[i]) pairs of dense indices, where ids[u] is the
+     * original value of u. The undirected flag works as in fromCapGraph.
+     */
+    public static CSRGraph build(int[] ids, int[] from, int[] to, int m, boolean undirected) {
+        int n = ids.length;
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            if (undirected) {
+                if (from[i] == to[i]) {
+                    continue;
+                }
+                offsets[to[i] + 1]++;
+            }
+            offsets[from[i] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        int[] targets = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < m; i++) {
+            if (undirected) {
+                if (from[i] == to[i]) {
+                    continue;
+                }
+                targets[fill[to[i]]++] = from[i];
+            }
+            targets[fill[from[i]]++] = to[i];
+        }
+
+        CSRGraph csr = new CSRGraph(ids, offsets, targets);
+        csr.sortAdjacency(undirected);
+        return csr;
+    }
+
+    /**
+     * Builds an undirected snapshot of the egonet around center: its
+     * neighbors, the center itself if includeCenter is set, and every
+     * edge among them. Only the members' own adjacency is read, so this
+     * costs the sum of their degrees rather than the whole graph.
+     */
+    public static CSRGraph egonet(CapGraph g, int center, boolean includeCenter) {
+        Vertex start = g.getVertex(center);
+        List<Vertex> members = start.getNeighbors();
+        if (includeCenter) {
+            members.add(start);
+        }
+        int[] ids = new int[members.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = members.get(i).getVal();
+        }
+        Arrays.sort(ids);
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if ((i == 0 || ids[i] != ids[i - 1]) && (includeCenter || ids[i] != center)) {
+                ids[n++] = ids[i];
+            }
+        }
+        ids = Arrays.copyOf(ids, n);
+
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            m += g.getVertex(ids[u]).degree();
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        m = 0;
+        for (int u = 0; u < n; u++) {
+            Vertex v = g.getVertex(ids[u]);
+            for (Edge e : v.getEdges()) {
+                int w = Arrays.binarySearch(ids, e.getOtherVertex(v).getVal());
+                if (w >= 0) {
+                    from[m] = u;
+                    to[m] = w;
+                    m++;
+                }
+            }
+        }
+        return build(ids, from, to, m, true);
+    }
+
+    /* Counts the neighbors u and v have in common. */
+    public int commonNeighbors(int u, int v) {
+        return Intersect.ADAPTIVE.intersect(targets, offsets[u], offsets[u + 1],
+                targets, offsets[v], offsets[v + 1], null);
+    }
+
+    /**
+     * Returns the graph with every arc reversed, so the adjacency of u
+     * lists its in-neighbors. Arcs are scattered into place from all
+     * sources in parallel, then each in-list is sorted in parallel.
+     */
+    public CSRGraph transpose() {
+        final int n = ids.length;
+        final int[] inOffsets = new int[n + 1];
+        for (int j = 0; j < edgeCount(); j++) {
+            inOffsets[targets[j] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            inOffsets[u + 1] += inOffsets[u];
+        }
+        final int[] inTargets = new int[edgeCount()];
+        final AtomicIntegerArray fill = new AtomicIntegerArray(Arrays.copyOf(inOffsets, n));
+        IntStream.range(0, n).parallel().forEach(u -> {
+            for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                inTargets[fill.getAndIncrement(targets[j])] = u;
+            }
+        });
+        IntStream.range(0, n).parallel().forEach(v -> {
+            Arrays.sort(inTargets, inOffsets[v], inOffsets[v + 1]);
+        });
+        return new CSRGraph(ids, inOffsets, inTargets);
+    }
+
+    /* Returns the subgraph induced by the given dense indices. */
+    public CSRGraph subgraph(int[] vertices) {
+        int[] keep = vertices.clone();
+        Arrays.sort(keep);
+        int[] local = new int[ids.length];
+        Arrays.fill(local, -1);
+        int[] subIds = new int[keep.length];
+        for (int i = 0; i < keep.length; i++) {
+            local[keep[i]] = i;
+            subIds[i] = ids[keep[i]];
+        }
+
+        int[] subOffsets = new int[keep.length + 1];
+        int[] subTargets = new int[edgeCount()];
+        int m = 0;
+        for (int i = 0; i < keep.length; i++) {
+            int u = keep[i];
+            for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                if (local[targets[j]] >= 0) {
+                    subTargets[m++] = local[targets[j]];
+                }
+            }
+            subOffsets[i + 1] = m;
+        }
+        return new CSRGraph(subIds, subOffsets, Arrays.copyOf(subTargets, m));
+    }
+
+    // Sorts every adjacency slice and optionally squeezes out repeats.
+    private void sortAdjacency(boolean dedupe) {
+        int n = ids.length;
+        for (int u = 0; u < n; u++) {
+            Arrays.sort(targets, offsets[u], offsets[u + 1]);
+        }
+        if (!dedupe) {
+            return;
+        }
+        int write = 0;
+        int start = 0;
+        for (int u = 0; u < n; u++) {
+            int end = offsets[u + 1];
+            offsets[u] = write;
+            for (int j = start; j < end; j++) {
+                if (j == start || targets[j] != targets[j - 1]) {
+                    targets[write++] = targets[j];
+                }
+            }
+            start = end;
+        }
+        offsets[n] = write;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int edgeCount() {
+        return offsets[ids.length];
+    }
+
+    public int degree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /* Returns the original value of dense vertex u. */
+    public int id(int u) {
+        return ids[u];
+    }
+
+    /**
+     * Returns the dense index of the vertex with the given value, or -1.
+     * This is a position in this snapshot, ascending by value unless
+     * reordered, and not the insertion-order index of CapGraph.indexOf.
+     */
+    public int indexOf(int id) {
+        return indexOf(ids, byId, id);
+    }
+
+    /**
+     * Strongly connected component of every dense vertex, numbered from
+     * 0, by Tarjan's algorithm with explicit stacks.
+     */
+    public int[] sccLabels() {
+        int n = ids.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] comp = new int[n];
+        int[] next = new int[n];
+        int[] call = new int[n];
+        int[] stack = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(comp, -1);
+        int time = 0;
+        int count = 0;
+        int top = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            call[depth++] = root;
+            index[root] = low[root] = time++;
+            next[root] = offsets[root];
+            stack[top++] = root;
+
+            while (depth > 0) {
+                int u = call[depth - 1];
+                if (next[u] < offsets[u + 1]) {
+                    int v = targets[next[u]++];
+                    if (index[v] == -1) {
+                        index[v] = low[v] = time++;
+                        next[v] = offsets[v];
+                        stack[top++] = v;
+                        call[depth++] = v;
+                    } else if (comp[v] == -1) {
+                        // v is still on the stack
+                        low[u] = Math.min(low[u], index[v]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[u] == index[u]) {
+                    int w;
+                    do {
+                        w = stack[--top];
+                        comp[w] = count;
+                    } while (w != u);
+                    count++;
+                }
+                if (depth > 0) {
+                    int p = call[depth - 1];
+                    low[p] = Math.min(low[p], low[u]);
+                }
+            }
+        }
+        return comp;
+    }
+
+    /* Returns a copy of u's sorted neighbor indices. */
+    public int[] neighbors(int u) {
+        return Arrays.copyOfRange(targets, offsets[u], offsets[u + 1]);
+    }
+}
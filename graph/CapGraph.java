@@ -2,6 +2,7 @@ package graph;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
@@ -18,26 +19,65 @@ import java.util.HashMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import util.GraphLoader;
+import util.IntHashSet;
+import util.IntSetMap;
 
 public class CapGraph implements Graph {
-    private Map<Integer, Vertex> vertices;
+    private VertexMap vertices;
+    // whether every vertex keeps a list of its in-edges
+    private boolean inEdgeIndex = false;
+    private final boolean undirected;
+    // next free Edge id, and the edge properties allocated so far
+    private int edgeIds = 0;
+    private Map<String, EdgeColumn> columns = new HashMap<String, EdgeColumn>();
+    public static final String FLOW = "flow";
     
     public CapGraph() {
-        vertices = new HashMap<Integer, Vertex>();
+        this(false);
+    }
+
+    /**
+     * An undirected graph stores one Edge per pair of friends and lists
+     * it at both ends, so flow and other per-edge data live in one place
+     * and removeEdge on either end removes it from both. Adding an edge
+     * that is already there, in either direction, does nothing, so files
+     * that list every friendship both ways load with half the Edges.
+     * Self-loops are ignored.
+     */
+    public CapGraph(boolean undirected) {
+        vertices = new VertexMap();
+        this.undirected = undirected;
+        // the in-edges of an undirected vertex are its edges
+        inEdgeIndex = undirected;
     }
 
     /** Given a list of vertices from an old graph,
      *  creates a new graph containing only those vertices.
+     *  The copies get Edges of their own, with ids from this graph, so
+     *  columns and edge removal here never touch the old graph.
      */
     public CapGraph(List<Vertex> allowed) {
-        vertices = new HashMap<Integer, Vertex>();
+        vertices = new VertexMap();
+        undirected = false;
+        List<Vertex> sources = new ArrayList<Vertex>(allowed.size());
         for (Vertex v : allowed) {
-            vertices.put(v.getVal(), new Vertex(v, allowed));
+            if (insert(v.getVal())) {
+                sources.add(v);
+            }
+        }
+        for (Vertex v : sources) {
+            Vertex copy = getVertex(v.getVal());
+            for (Edge e : v.getEdges()) {
+                Vertex w = getVertex(e.getOtherVertex(v).getVal());
+                if (w != null) {
+                    copy.addEdge(new Edge(copy, w, edgeIds++));
+                }
+            }
         }
     }
 
     public boolean contains(int i) {
-        return vertices.containsKey(i);
+        return vertices.containsId(i);
     }
 
     public boolean insert(int i) {
@@ -45,28 +85,187 @@ public class CapGraph implements Graph {
             return false;
         }
         Vertex v = new Vertex(i);
-        vertices.put(i, v);
+        if (undirected) {
+            v.inEdges = v.edges;
+        } else if (inEdgeIndex) {
+            v.inEdges = new EdgeList(v);
+        }
+        vertices.add(v);
         return true;
     }
 
+    /**
+     * Starts keeping the in-edges of every vertex, so predecessors are
+     * available through Vertex.getInEdges. The index is filled once
+     * from the current edges and then kept up to date by addEdge and
+     * removeEdge. getSCCs fills it for its own use when it is off.
+     */
+    public void indexInEdges() {
+        if (inEdgeIndex) {
+            return;
+        }
+        inEdgeIndex = true;
+        fillInEdges();
+    }
+
+    // Endpoints are looked up by value, since an edge made through
+    // Vertex.addEdge may point at a vertex of another graph.
+    private void fillInEdges() {
+        for (Vertex v : vertices.values()) {
+            v.inEdges = new EdgeList(v);
+        }
+        for (Vertex v : vertices.values()) {
+            for (Edge e : v.getEdges()) {
+                Vertex w = getVertex(e.getOtherVertex(v).getVal());
+                if (w != null) {
+                    w.inEdges.add(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts every adjacency list by neighbor value and removes repeated
+     * edges, such as those from duplicate lines in a file or from
+     * readEdges on overlapping files. Self-loops are dropped too if
+     * asked. Lists are processed in parallel, one vertex per task, and
+     * stay sorted as long as later edges arrive in increasing order.
+     * Returns the number of edges removed.
+     */
+    public int normalizeEdges(boolean dropSelfLoops) {
+        int removed = vertices.values().parallelStream()
+                .mapToInt(v -> v.edges.normalize(dropSelfLoops))
+                .sum();
+        if (inEdgeIndex && !undirected && removed > 0) {
+            fillInEdges();
+        }
+        return removed;
+    }
+
+    public boolean hasInEdgeIndex() {
+        return inEdgeIndex;
+    }
+
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    /* Number of Edge objects; each friendship counts once if undirected. */
+    public int edgeCount() {
+        int ret = 0;
+        for (Vertex v : vertices.values()) {
+            ret += v.degree();
+        }
+        return undirected ? ret / 2 : ret;
+    }
+
     public void addVertex(int i) {
         insert(i);
     }
 
 
     public void addEdge(int from, int to) {
-        this.getVertex(from).addEdge(this.getVertex(to));
+        Vertex v = this.getVertex(from);
+        Vertex w = this.getVertex(to);
+        if (undirected && (from == to || v.hasEdge(w))) {
+            return;
+        }
+        v.addEdge(new Edge(v, w, edgeIds++));
+    }
+
+    /**
+     * Adds the edges from[i] -> to[i], creating missing vertices, with
+     * the same rules as addEdge. The batch is sorted first, so each
+     * source is looked up once and its new edges are appended in
+     * increasing order, which keeps normalized adjacency sorted. Edge
+     * columns are grown once for the whole batch.
+     */
+    public void addEdges(int[] from, int[] to) {
+        if (from.length != to.length) {
+            throw new IllegalArgumentException("Edge arrays differ in length!");
+        }
+        long[] keys = new long[from.length];
+        for (int i = 0; i < keys.length; i++) {
+            // flipping the sign bit makes the low half sort like an int
+            keys[i] = ((long) from[i] << 32) | ((to[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+
+        Vertex v = null;
+        for (long key : keys) {
+            int f = (int) (key >> 32);
+            int t = (int) key ^ Integer.MIN_VALUE;
+            if (v == null || v.getVal() != f) {
+                insert(f);
+                v = getVertex(f);
+            }
+            insert(t);
+            Vertex w = getVertex(t);
+            if (undirected && (f == t || v.hasEdge(w))) {
+                continue;
+            }
+            v.addEdge(new Edge(v, w, edgeIds++));
+        }
+        for (EdgeColumn column : columns.values()) {
+            column.reserve(edgeIds);
+        }
+    }
+
+    /**
+     * Returns the named edge property, allocating it the first time.
+     * Edges made by this graph are numbered as they are added; those
+     * made directly through Vertex.addEdge are numbered by the column
+     * the first time a value is set on them.
+     */
+    public EdgeColumn edgeColumn(String name) {
+        EdgeColumn column = columns.get(name);
+        if (column == null) {
+            column = new EdgeColumn(this, edgeIds);
+            columns.put(name, column);
+        }
+        return column;
+    }
+
+    public void dropEdgeColumn(String name) {
+        columns.remove(name);
+    }
+
+    /* Takes the next free Edge id, for EdgeColumn. */
+    int nextEdgeId() {
+        return edgeIds++;
     }
 
     public Vertex getVertex(int i) {
         return vertices.get(i);
     }
 
+    public int size() {
+        return vertices.size();
+    }
+
+    /**
+     * Dense index of the vertex with value i, or -1. Indices follow
+     * insertion order, unlike a CSRGraph snapshot, which numbers vertices
+     * by ascending value; translate through the value, not the index.
+     */
+    public int indexOf(int i) {
+        return vertices.ids().indexOf(i);
+    }
+
+    /* Vertex with dense index 0 <= index < size(), in insertion order. */
+    public Vertex getVertexAt(int index) {
+        return vertices.at(index);
+    }
+
+    /* Vertex values by dense index. */
+    public VertexIds getVertexIds() {
+        return vertices.ids();
+    }
+
     public static void printGraph(CapGraph graph) {
         Map<Integer, Vertex> vertices = graph.getVertices();
         
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
 
             System.out.print("\n"+v.getVal() + " : ");
             
@@ -83,12 +282,24 @@ public class CapGraph implements Graph {
             HashSet<Integer> val = new HashSet<Integer>();
             List<Edge> edges = pair.getValue().getEdges();
             for (Edge e : edges) {
-                val.add(e.getV2().getVal());
+                val.add(e.getOtherVertex(pair.getValue()).getVal());
             }
             ret.put(pair.getKey(), val);
         }
         return ret;
     }
+
+    public IntSetMap exportSets() {
+        IntSetMap ret = new IntSetMap(vertices.size());
+        for (Vertex v : vertices.values()) {
+            IntHashSet val = new IntHashSet(v.degree());
+            for (Edge e : v.getEdges()) {
+                val.add(e.getOtherVertex(v).getVal());
+            }
+            ret.put(v.getVal(), val);
+        }
+        return ret;
+    }
     
     public void readEdges(String file) {
         Scanner sc;
@@ -106,7 +317,7 @@ public class CapGraph implements Graph {
             while (numSc.hasNextInt()) {
                 int i2 = numSc.nextInt();
                 this.insert(i2);
-                this.getVertex(i1).addEdge(this.getVertex(i2));
+                this.addEdge(i1, i2);
             }
             numSc.close();
         }
@@ -115,8 +326,9 @@ public class CapGraph implements Graph {
 
     public double calculateDensity(List<Vertex> allowed) {
         int edges = 0;
+        int[] members = Vertex.sortedValues(allowed);
         for (Vertex v : allowed) {
-            edges += v.getEdgeCount(allowed);
+            edges += v.getEdgeCount(members);
         }
         return edges * 1.0 / allowed.size();
     }
@@ -125,38 +337,72 @@ public class CapGraph implements Graph {
     /**
      * Given a vertex, find the most dense subgraph containing it.
      * This measures the connectivity between vertices.
-     * This is a greedy algorithm from On Finding Dense Subgraphs
-     * by Khuller and Saha. Note that this is not necessarily the
-     * largest subgraph, but it will come close.
+     * This is Charikar's greedy peeling, as used in On Finding Dense
+     * Subgraphs by Khuller and Saha, run over the vertex's egonet.
+     * Note that this is not necessarily the densest subgraph, but it
+     * is at least half as dense. See DensestSubgraph.
      */
     public List<Vertex> largestDenseNetwork(int start) {
         return largestDenseNetwork(this.getVertex(start));   
     }
 
     public List<Vertex> largestDenseNetwork(Vertex start) {
-        CapGraph g = new CapGraph(start.getNeighborsAndThis());
-        List<Vertex> neighbors = new ArrayList<Vertex>(g.getVertices().values());
-        Collections.sort(neighbors, Vertex.VertexComparator);
+        return largestDenseNetwork(start, false);
+    }
+
+    /**
+     * With exact set, returns a provably densest subgraph of the egonet
+     * instead of the greedy answer. This costs a max-flow per step of a
+     * binary search, so keep it to egonets of a few thousand vertices.
+     */
+    public List<Vertex> largestDenseNetwork(int start, boolean exact) {
+        return largestDenseNetwork(this.getVertex(start), exact);
+    }
+
+    public List<Vertex> largestDenseNetwork(Vertex start, boolean exact) {
+        CSRGraph ego = CSRGraph.egonet(this, start.getVal(), true);
+        int center = ego.indexOf(start.getVal());
+        DensestSubgraph.Result dense = exact
+                ? DensestSubgraph.exact(ego)
+                : DensestSubgraph.peel(ego, center);
+
         List<Vertex> ret = new ArrayList<Vertex>();
-        double density = 0;
+        boolean hasCenter = false;
+        for (int u : dense.vertices) {
+            ret.add(this.getVertex(ego.id(u)));
+            hasCenter |= u == center;
+        }
+        // the center is adjacent to every other egonet vertex, so adding
+        // it never lowers the density
+        if (!hasCenter) {
+            ret.add(start);
+        }
+        return ret;
+    }
 
-        boolean first = false;
-        for (Vertex v : neighbors) {
-            ret.add(v);
-            if (!first) {
-                first = true;
-                continue;
-            }
-            double currDensity = calculateDensity(ret);
-            if (currDensity <= density) {
-                ret.remove(v);
-            } else {
-                density = currDensity;
-            }
+    /**
+     * Returns the vertices of the k-core, treating edges as undirected.
+     * See CoreIndex for reusing the decomposition across many k.
+     */
+    public List<Vertex> kCore(int k) {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        List<Vertex> ret = new ArrayList<Vertex>();
+        for (int u : CoreIndex.compute(csr).atLeast(k)) {
+            ret.add(this.getVertex(csr.id(u)));
         }
+        return ret;
+    }
 
-        for (int i = 0; i < ret.size(); i++) {
-            ret.set(i, this.getVertex(ret.get(i).getVal()));
+    /**
+     * Finds the community around start by approximate personalized
+     * PageRank and a conductance sweep. This builds a fresh snapshot of
+     * the graph; keep a LocalCluster around to answer many queries.
+     */
+    public List<Vertex> localCommunity(int start) {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        List<Vertex> ret = new ArrayList<Vertex>();
+        for (int u : new LocalCluster(csr).community(start)) {
+            ret.add(this.getVertex(csr.id(u)));
         }
         return ret;
     }
@@ -223,62 +469,84 @@ public class CapGraph implements Graph {
     }
 
     public void findFlow() {
+        EdgeColumn edgeFlow = edgeColumn(FLOW);
         // so in-place sort doesn't mess up old order
-        List<Vertex> vertexCopy = new ArrayList<Vertex>(((HashMap<Integer, Vertex>)vertices).values());
+        List<Vertex> vertexCopy = new ArrayList<Vertex>(vertices.values());
         Collections.sort(vertexCopy);
         for (Vertex v : vertexCopy) {
             for (Vertex p : v.parents) {
                 float flowAdd = v.flow * (float)(p.pathCount / v.pathCount);
                 p.flow += flowAdd;
-                Edge e = v.getEdge(p);
-                e.flow += flowAdd;
+                edgeFlow.add(v.getEdge(p), flowAdd);
             }
         }
     }
 
     public void findPartitions() {
         // Calculate flow from each vertex
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
             resetVertices();
             bfs(v);
             findFlow();
         }
 
+        EdgeColumn edgeFlow = edgeColumn(FLOW);
         float max = 0;
         Edge maxEdge = null;
 
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
             for (Edge e : v.getEdges()) {
-                if (e.flow > max) {
+                if (edgeFlow.get(e) > max) {
                     maxEdge = e;
-                    max = e.flow;
+                    max = edgeFlow.get(e);
                 }
             }
         }
 
         // partition
         Edge e = maxEdge;
-        System.out.println(e.getV1().getVal() + " to " + e.getV2().getVal() + ": " + e.flow);
+        System.out.println(e.getV1().getVal() + " to " + e.getV2().getVal() + ": " + max);
         e.getV1().removeEdge(e.getV2());
-        e.getV2().removeEdge(e.getV1());
+        if (!undirected) {
+            e.getV2().removeEdge(e.getV1());
+        }
+    }
+
+    /**
+     * Removes every bridge that would split off at least minSide
+     * vertices. Bridges are found in linear time, so cutting them before
+     * partition saves the betweenness passes that would find them.
+     * Returns the number of bridges removed.
+     */
+    public int cutBridges(int minSide) {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        Bridges bridges = new Bridges(csr);
+        int cut = 0;
+        for (int i = 0; i < bridges.bridgeCount(); i++) {
+            if (bridges.smallerSide(i) < minSide) {
+                continue;
+            }
+            int[] edge = bridges.bridge(i);
+            Vertex v1 = getVertex(csr.id(edge[0]));
+            Vertex v2 = getVertex(csr.id(edge[1]));
+            v1.removeEdge(v2);
+            v2.removeEdge(v1);
+            cut++;
+        }
+        return cut;
     }
 
     // Clears vertex information such as visited, layer, etc.
     public void resetVertices() {
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
             v.reset();
         }
     }
 
     public void resetEdges() {
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
-            for (Edge e : v.getEdges()) {
-                e.setFlow(0);
-            }
+        EdgeColumn edgeFlow = columns.get(FLOW);
+        if (edgeFlow != null) {
+            edgeFlow.fill(0);
         }
     }
 
@@ -289,8 +557,7 @@ public class CapGraph implements Graph {
             findPartitions();
             resetVertices();
             resetEdges();
-            for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-                Vertex v = entry.getValue();
+            for (Vertex v : vertices.values()) {
                 if (!v.visited) {
                     count++;
                     bfs(v);
@@ -300,8 +567,7 @@ public class CapGraph implements Graph {
 
         count = 0;
         resetVertices();
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
             if (!v.visited) {
                 System.out.println("Vertex: " + v.getVal());
                 count++;
@@ -311,11 +577,104 @@ public class CapGraph implements Graph {
         }
     } 
 
+    /**
+     * Runs Girvan-Newman until there are amount partitions, scoring the
+     * split after every edge removal against the original graph, and
+     * prints the split with the highest modularity.
+     */
+    public void partitionBestModularity(int amount) {
+        CSRGraph original = CSRGraph.fromCapGraph(this, true);
+        int[] best = componentLabels(original);
+        PartitionScore bestScore = PartitionScore.score(original, best);
+        int count = bestScore.communities;
+        while (count < amount) {
+            findPartitions();
+            resetVertices();
+            resetEdges();
+            int[] labels = componentLabels(original);
+            PartitionScore score = PartitionScore.score(original, labels);
+            count = score.communities;
+            if (score.modularity > bestScore.modularity) {
+                best = labels;
+                bestScore = score;
+            }
+        }
+        printPartitions(original, best);
+        System.out.println("Modularity: " + bestScore.modularity);
+    }
+
+    // Numbers the current connected components, per dense vertex of csr.
+    private int[] componentLabels(CSRGraph csr) {
+        int[] labels = new int[csr.size()];
+        int count = 0;
+        resetVertices();
+        for (Vertex v : vertices.values()) {
+            if (!v.visited) {
+                for (Vertex member : bfs(v)) {
+                    labels[csr.indexOf(member.getVal())] = count;
+                }
+                count++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Near-linear alternative to partition: finds communities by label
+     * propagation and prints them in the same format.
+     */
+    public void partitionByLabels(int maxIterations) {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        int[] community = new LabelPropagation(csr).setMaxIterations(maxIterations).run();
+        printPartitions(csr, community);
+    }
+
+    /**
+     * Finds communities with the Louvain method, which scales far past
+     * partition, and prints them in the same format.
+     */
+    public void partitionByModularity() {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        Louvain louvain = new Louvain(csr);
+        printPartitions(csr, louvain.run());
+        System.out.println("Modularity: " + louvain.modularity());
+    }
+
+    /**
+     * Splits the graph in two along the Fiedler vector, a much cheaper
+     * alternative to partition(2), and prints both halves.
+     */
+    public void partitionSpectral() {
+        CSRGraph csr = CSRGraph.fromCapGraph(this, true);
+        SpectralBisection spectral = new SpectralBisection(csr);
+        printPartitions(csr, spectral.run());
+        System.out.println("Conductance: " + spectral.conductance());
+    }
+
+    // Prints a community per dense vertex of csr the way partition does.
+    public void printPartitions(CSRGraph csr, int[] community) {
+        List<List<Vertex>> groups = new ArrayList<List<Vertex>>();
+        for (int u = 0; u < community.length; u++) {
+            while (groups.size() <= community[u]) {
+                groups.add(new ArrayList<Vertex>());
+            }
+            groups.get(community[u]).add(getVertex(csr.id(u)));
+        }
+        int count = 0;
+        for (List<Vertex> group : groups) {
+            if (group.isEmpty()) {
+                continue;
+            }
+            count++;
+            System.out.println("Vertex: " + group.get(0).getVal());
+            System.out.println("Partition #" + count + ": " + printListString(group));
+        }
+    }
+
     public int countPartitions() {
         int count = 0;
         resetVertices();
-        for (Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            Vertex v = entry.getValue();
+        for (Vertex v : vertices.values()) {
             if (!v.visited) {
                 count++;
                 bfs(v);
@@ -345,11 +704,11 @@ public class CapGraph implements Graph {
         
         int count = 1;
         for(Graph graph : sccs) {
-            HashMap<Integer, HashSet<Integer>> curr = graph.exportGraph();
+            IntSetMap curr = graph.exportSets();
             System.out.print("scc " + count +": ");
             count++;
-            for (Map.Entry<Integer, HashSet<Integer>> entry : curr.entrySet()) {
-                HashSet<Integer> scc = entry.getValue();
+            for (int i = 0; i < curr.size(); i++) {
+                IntHashSet scc = curr.get(curr.keys().get(i));
                 System.out.println(scc);
                 //sccs.add(scc);
             }
@@ -389,6 +748,18 @@ public class CapGraph implements Graph {
         System.out.println("Ret size: " + ret.size());
         return ret;
     }
+
+    /**
+     * Ranks possible friends by personalized PageRank instead of
+     * stopping at two hops. See PersonalizedPageRank for the tunables.
+     */
+    public List<Vertex> recommendFriends(int vertex, int k) {
+        List<Vertex> ret = new ArrayList<Vertex>();
+        for (int val : new PersonalizedPageRank(this).recommend(vertex, k)) {
+            ret.add(getVertex(val));
+        }
+        return ret;
+    }
     // ===========================================================
 
 
@@ -415,6 +786,19 @@ public class CapGraph implements Graph {
         return curr;
     }
 
+    /**
+     * Returns the k most influential vertices by PageRank over the
+     * directed edges, a better measure of reach than getLargestDegree.
+     */
+    public List<Vertex> getMostInfluential(int k) {
+        CSRGraph csr = CSRGraph.fromCapGraph(this);
+        List<Vertex> ret = new ArrayList<Vertex>();
+        for (int u : PageRank.top(new PageRank(csr).run(), k)) {
+            ret.add(getVertex(csr.id(u)));
+        }
+        return ret;
+    }
+
     public String printGraph() {
         // add vertices to tree map sorted by integer key values
         TreeMap<Integer, Vertex> newVertices = 
@@ -424,16 +808,17 @@ public class CapGraph implements Graph {
         for (Map.Entry<Integer, Vertex> entry : newVertices.entrySet()) {
             Vertex v = entry.getValue();
             ret += v.getVal() + ": ";
+            final Vertex owner = v;
             List<Edge> newEdges = new ArrayList<Edge>(v.getEdges());
             Collections.sort(newEdges, new Comparator<Edge>() {
                 @Override
                 public int compare(Edge e1, Edge e2) {
-                    return e1.getV2().getVal() - e2.getV2().getVal();
+                    return e1.getOtherVertex(owner).getVal() - e2.getOtherVertex(owner).getVal();
                 }
             });
 
             for (int i = 0; i < newEdges.size(); i++) {
-                ret += newEdges.get(i).getV2().getVal();
+                ret += newEdges.get(i).getOtherVertex(v).getVal();
                 if (i < newEdges.size() - 1) {
                     ret += ", ";
                 }
@@ -443,24 +828,65 @@ public class CapGraph implements Graph {
         return ret;
     }
 
+    /**
+     * Fraction of pairs of the vertex's friends who are friends with each
+     * other. See Triangles for computing this for every vertex at once.
+     */
+    public double clusteringCoefficient(int center) {
+        CSRGraph ego = CSRGraph.egonet(this, center, false);
+        long d = ego.size();
+        if (d < 2) {
+            return 0;
+        }
+        return ego.edgeCount() * 1.0 / (d * (d - 1));
+    }
+
     public Graph getEgonet(int center) {
         Vertex start = getVertex(center);
         List<Vertex> friends = new ArrayList<Vertex>();
         for (Edge e : start.getEdges()) {
-            friends.add(e.getV2());
+            friends.add(e.getOtherVertex(start));
         }
         return new CapGraph(friends);
     }
 
 
+    /**
+     * Returns the maximal cliques of at least minSize friends inside the
+     * egonet of center. See Cliques for batches of egonets.
+     */
+    public List<List<Vertex>> getEgonetCliques(int center, int minSize) {
+        final CSRGraph ego = CSRGraph.egonet(this, center, false);
+        final List<List<Vertex>> ret = new ArrayList<List<Vertex>>();
+        Cliques.enumerate(ego, minSize, vertices -> {
+            List<Vertex> clique = new ArrayList<Vertex>();
+            for (int u : vertices) {
+                clique.add(getVertex(ego.id(u)));
+            }
+            ret.add(clique);
+        });
+        return ret;
+    }
+
+
     // SCC FINDING ===================================================
 
     public List<Graph> getSCCs() {
         List<Graph> sccs = new ArrayList<Graph>();
-        CapGraph gReverse = CapGraph.getReverseGraph(this);
+        // DFS over in-edges walks the reverse graph without copying it;
+        // an index filled only for this call is dropped again afterwards
+        boolean indexed = inEdgeIndex;
+        if (!indexed) {
+            fillInEdges();
+        }
         List<Vertex> postList = new ArrayList<Vertex>();
 
-        gReverse.dfs(postList);
+        dfs(postList, true);
+        if (!indexed) {
+            for (Vertex v : vertices.values()) {
+                v.inEdges = null;
+            }
+        }
 
         this.resetVertices();
 
@@ -522,8 +948,7 @@ public class CapGraph implements Graph {
                 other = edge.getOtherVertex(v);
                 gReverse.insert(other.getVal());
 
-                gReverse.getVertex(other.getVal())
-                    .addEdge(gReverse.getVertex(v.getVal()));
+                gReverse.addEdge(other.getVal(), v.getVal());
 
             }       
         }
@@ -532,13 +957,18 @@ public class CapGraph implements Graph {
     }
         
     public void dfs(List<Vertex> postList) {
+        dfs(postList, false);
+    }
+
+    /* With reverse set, follows in-edges instead (needs indexInEdges). */
+    public void dfs(List<Vertex> postList, boolean reverse) {
         resetVertices();
         Integer clk = 0;
         
         for (Map.Entry<Integer, Vertex> entry : getVertices().entrySet()) {
             Vertex v = entry.getValue();
             if(!v.visited) {
-                explore(v, postList, clk);
+                explore(v, postList, clk, reverse);
             }
         }
     }
@@ -549,6 +979,10 @@ public class CapGraph implements Graph {
      *
      */
     public void explore(Vertex start, List<Vertex> postList, Integer clk) {
+        explore(start, postList, clk, false);
+    }
+
+    public void explore(Vertex start, List<Vertex> postList, Integer clk, boolean reverse) {
         Stack<Vertex> vStack = new Stack<Vertex>();
 
 
@@ -574,6 +1008,16 @@ public class CapGraph implements Graph {
 
             clk++;
 
+            if (reverse) {
+                // sources are resolved here, as subgraph edges are shared
+                for (Edge edge : working.inEdges) {
+                    Vertex source = getVertex(edge.getOtherVertex(working).getVal());
+                    if (!source.visited) {
+                        vStack.push(source);
+                    }
+                }
+                continue;
+            }
             for(Edge edge : working.edges) {
                 if(!edge.getOtherVertex(working).visited) {
                     vStack.push(edge.getOtherVertex(working));
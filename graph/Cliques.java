@@ -0,0 +1,190 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import util.GraphLoader;
+
+/**
+ * Maximal clique enumeration with Bron-Kerbosch.
+ * The outer loop walks the vertices in degeneracy order and only looks
+ * forward, so each top-level call starts from a candidate set no larger
+ * than the degeneracy. Inside, Tomita's pivot (the vertex of P u X with
+ * the most neighbors in P) prunes the branching. The sets P and X are
+ * bitsets over the graph's dense indices, so every step is a word-wise
+ * AND over long[] arrays. Meant for egonets, where n is small enough
+ * for an n x n adjacency bitmap.
+ */
+public class Cliques {
+
+    /** Receives each maximal clique as it is found. */
+    public interface Listener {
+        void clique(int[] vertices);
+    }
+
+    /** Receives the maximal cliques of a batch, tagged with their center. */
+    public interface EgonetListener {
+        void clique(int center, int[] ids);
+    }
+
+    private final int n;
+    private final int words;
+    private final long[][] adj;
+    private final int minSize;
+    private final Listener listener;
+    private final int[] clique;
+
+    private Cliques(CSRGraph g, int minSize, Listener listener) {
+        n = g.size();
+        words = (n + 63) >>> 6;
+        adj = new long[n][words];
+        for (int u = 0; u < n; u++) {
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                int v = g.targets[j];
+                adj[u][v >>> 6] |= 1L << v;
+            }
+        }
+        this.minSize = minSize;
+        this.listener = listener;
+        clique = new int[n];
+    }
+
+    /**
+     * Streams every maximal clique of the undirected graph g with at
+     * least minSize vertices to listener, as dense indices of g.
+     */
+    public static void enumerate(CSRGraph g, int minSize, Listener listener) {
+        Cliques bk = new Cliques(g, minSize, listener);
+        int[] order = CoreIndex.degeneracyOrder(g);
+        int[] rank = new int[bk.n];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        for (int v : order) {
+            long[] p = new long[bk.words];
+            long[] x = new long[bk.words];
+            for (int j = g.offsets[v]; j < g.offsets[v + 1]; j++) {
+                int u = g.targets[j];
+                if (rank[u] > rank[v]) {
+                    p[u >>> 6] |= 1L << u;
+                } else {
+                    x[u >>> 6] |= 1L << u;
+                }
+            }
+            bk.clique[0] = v;
+            bk.expand(1, p, x);
+        }
+    }
+
+    private void expand(int size, long[] p, long[] x) {
+        if (isEmpty(p)) {
+            if (isEmpty(x) && size >= minSize) {
+                int[] ret = new int[size];
+                System.arraycopy(clique, 0, ret, 0, size);
+                listener.clique(ret);
+            }
+            return;
+        }
+
+        // Tomita pivot: only branch on P minus the pivot's neighbors
+        int pivot = -1;
+        int most = -1;
+        for (int w = 0; w < words; w++) {
+            long bits = p[w] | x[w];
+            while (bits != 0) {
+                int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int count = 0;
+                for (int k = 0; k < words; k++) {
+                    count += Long.bitCount(p[k] & adj[u][k]);
+                }
+                if (count > most) {
+                    most = count;
+                    pivot = u;
+                }
+            }
+        }
+
+        long[] branch = new long[words];
+        for (int w = 0; w < words; w++) {
+            branch[w] = p[w] & ~adj[pivot][w];
+        }
+        for (int w = 0; w < words; w++) {
+            long bits = branch[w];
+            while (bits != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                long[] nextP = new long[words];
+                long[] nextX = new long[words];
+                for (int k = 0; k < words; k++) {
+                    nextP[k] = p[k] & adj[v][k];
+                    nextX[k] = x[k] & adj[v][k];
+                }
+                clique[size] = v;
+                expand(size + 1, nextP, nextX);
+
+                p[w] &= ~(1L << v);
+                x[w] |= 1L << v;
+            }
+        }
+    }
+
+    private static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Enumerates the maximal cliques of the egonet of every center in
+     * parallel. The egonet here is the center's neighbors, as returned by
+     * CapGraph.getEgonet. listener is called from several threads.
+     */
+    public static void egonets(final CapGraph g, int[] centers, final int minSize,
+            final EgonetListener listener) {
+        IntStream.of(centers).parallel().forEach(center -> {
+            final CSRGraph ego = CSRGraph.egonet(g, center, false);
+            enumerate(ego, minSize, vertices -> {
+                int[] ids = new int[vertices.length];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = ego.id(vertices[i]);
+                }
+                listener.clique(center, ids);
+            });
+        });
+    }
+
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        int minSize = 3;
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        if (args.length > 1) {
+            minSize = Integer.parseInt(args[1]);
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+
+        List<Integer> keys = new ArrayList<Integer>(g.getVertices().keySet());
+        int[] centers = new int[keys.size()];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = keys.get(i);
+        }
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong largest = new AtomicLong();
+        long start = System.nanoTime();
+        egonets(g, centers, minSize, (center, ids) -> {
+            count.incrementAndGet();
+            largest.accumulateAndGet(ids.length, Math::max);
+        });
+        System.out.printf("%d maximal cliques of size >= %d in %d egonets, largest %d, %.1f ms%n",
+                count.get(), minSize, centers.length, largest.get(),
+                (System.nanoTime() - start) / 1e6);
+    }
+}
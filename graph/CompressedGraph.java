@@ -0,0 +1,317 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import util.GraphLoader;
+
+/**
+ * Compressed form of a CSRGraph for cold storage.
+ * Each sorted adjacency list is gap encoded: the first neighbor as its
+ * signed distance from the vertex itself, then the difference to the
+ * previous neighbor. Social graphs have many small gaps, and every value
+ * is written as a varint of 7 bits per byte, so most take one or two
+ * bytes instead of four. The list starts with its degree, and an index
+ * holds the byte position where each list begins, so any list can be
+ * decoded on its own and neighbors are produced one at a time without
+ * unpacking the whole list.
+ */
+public class CompressedGraph {
+    private static final int MAGIC = 0x43475246;
+
+    // ids[u] is the original value of dense vertex u, as in CSRGraph,
+    // and byId the lookup order when a reordering left them unsorted
+    private final int[] ids;
+    private final int[] byId;
+    // the list of u is data[index[u]] .. data[index[u + 1] - 1]
+    private final int[] index;
+    private final byte[] data;
+
+    private CompressedGraph(int[] ids, int[] byId, int[] index, byte[] data) {
+        this.ids = ids;
+        this.byId = byId;
+        this.index = index;
+        this.data = data;
+    }
+
+    public static CompressedGraph fromCSR(CSRGraph g) {
+        int n = g.size();
+        int[] index = new int[n + 1];
+        byte[] data = new byte[Math.max(16, g.edgeCount() + n)];
+        int pos = 0;
+        for (int u = 0; u < n; u++) {
+            index[u] = pos;
+            // degree plus at most five bytes per neighbor
+            int worst = 5 * (g.degree(u) + 1);
+            if (pos + worst > data.length) {
+                data = Arrays.copyOf(data, Math.max(2 * data.length, pos + worst));
+            }
+            pos = writeVarint(data, pos, g.degree(u));
+            int prev = u;
+            boolean first = true;
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                int v = g.targets[j];
+                if (first) {
+                    int gap = v - u;
+                    // zigzag, so small negative distances stay small
+                    pos = writeVarint(data, pos, (gap << 1) ^ (gap >> 31));
+                    first = false;
+                } else {
+                    pos = writeVarint(data, pos, v - prev);
+                }
+                prev = v;
+            }
+        }
+        index[n] = pos;
+        return new CompressedGraph(Arrays.copyOf(g.ids, n), g.byId, index, Arrays.copyOf(data, pos));
+    }
+
+    private static int writeVarint(byte[] data, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int u) {
+        return ids[u];
+    }
+
+    /* Returns the dense index of the vertex with the given value, or -1. */
+    public int indexOf(int id) {
+        return CSRGraph.indexOf(ids, byId, id);
+    }
+
+    public int degree(int u) {
+        return new Cursor().reset(u).remaining;
+    }
+
+    /* Bytes held by the index and the encoded lists. */
+    public long byteSize() {
+        return 4L * ids.length + 4L * index.length + data.length;
+    }
+
+    /**
+     * Decodes the neighbors of u one at a time. A cursor can be reset to
+     * other vertices, so a scan over the graph needs only one.
+     */
+    public class Cursor {
+        private int pos;
+        private int prev;
+        private int remaining;
+        private boolean first;
+
+        public Cursor reset(int u) {
+            pos = index[u];
+            remaining = readVarint();
+            prev = u;
+            first = true;
+            return this;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int next() {
+            int value = readVarint();
+            if (first) {
+                prev += (value >>> 1) ^ -(value & 1);
+                first = false;
+            } else {
+                prev += value;
+            }
+            remaining--;
+            return prev;
+        }
+
+        private int readVarint() {
+            int b = data[pos++];
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+
+    public Cursor cursor(int u) {
+        return new Cursor().reset(u);
+    }
+
+    /* Decodes the list of u into out, which must hold degree(u) ints. */
+    public int neighbors(int u, int[] out) {
+        Cursor c = cursor(u);
+        int count = 0;
+        while (c.hasNext()) {
+            out[count++] = c.next();
+        }
+        return count;
+    }
+
+    /* Decompresses the whole graph. */
+    public CSRGraph toCSR() {
+        int n = ids.length;
+        int[] offsets = new int[n + 1];
+        Cursor c = new Cursor();
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + c.reset(u).remaining;
+        }
+        int[] targets = new int[offsets[n]];
+        for (int u = 0; u < n; u++) {
+            c.reset(u);
+            for (int j = offsets[u]; c.hasNext(); j++) {
+                targets[j] = c.next();
+            }
+        }
+        return new CSRGraph(Arrays.copyOf(ids, n), offsets, targets);
+    }
+
+    /**
+     * Writes the graph to a file. The ids and the index are gap encoded
+     * as well, as ids and list lengths, so the file is smaller than the
+     * graph in memory.
+     */
+    public void write(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(ids.length);
+            out.writeInt(data.length);
+            int prev = 0;
+            for (int u = 0; u < ids.length; u++) {
+                // ids of a reordered graph do not ascend, so gaps are
+                // zigzag encoded; a wrapped difference still decodes
+                int gap = ids[u] - prev;
+                writeVarint(out, (gap << 1) ^ (gap >> 31));
+                writeVarint(out, index[u + 1] - index[u]);
+                prev = ids[u];
+            }
+            out.write(data);
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int b = in.readByte();
+        int value = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    public static CompressedGraph read(String file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a compressed graph file: " + file);
+            }
+            int n = in.readInt();
+            byte[] data = new byte[in.readInt()];
+            int[] ids = new int[n];
+            int[] index = new int[n + 1];
+            int prev = 0;
+            for (int u = 0; u < n; u++) {
+                int gap = readVarint(in);
+                ids[u] = prev + ((gap >>> 1) ^ -(gap & 1));
+                index[u + 1] = index[u] + readVarint(in);
+                prev = ids[u];
+            }
+            in.readFully(data);
+            return new CompressedGraph(ids, CSRGraph.sortById(ids), index, data);
+        }
+    }
+
+    /**
+     * Reports the compression ratio against the CSR layout and how fast
+     * full scans decode, for each data file given.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            args = new String[] { "facebook_2000.txt", "twitter_higgs.txt" };
+        }
+        for (String filename : args) {
+            CapGraph g = new CapGraph();
+            GraphLoader.loadGraph(g, "data/" + filename);
+            CSRGraph csr = CSRGraph.fromCapGraph(g);
+            CompressedGraph cg = fromCSR(csr);
+
+            long csrBytes = 4L * csr.size() + 4L * (csr.size() + 1) + 4L * csr.edgeCount();
+            System.out.printf("%s: %d vertices, %d edges%n", filename, csr.size(), csr.edgeCount());
+            System.out.printf("  CSR %d bytes, compressed %d bytes (%.2fx), %.2f bits per edge in lists%n",
+                    csrBytes, cg.byteSize(), csrBytes * 1.0 / cg.byteSize(),
+                    8.0 * cg.data.length / Math.max(1, csr.edgeCount()));
+            try {
+                File file = File.createTempFile("graph", ".cg");
+                cg.write(file.getPath());
+                System.out.printf("  on disk %d bytes (%.2fx)%n",
+                        file.length(), csrBytes * 1.0 / file.length());
+                file.delete();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            // warm up both scans before timing them
+            long sum = 0;
+            for (int round = 0; round < 5; round++) {
+                sum += scan(cg) + scan(csr);
+            }
+            int rounds = 20;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                sum += scan(cg);
+            }
+            double compressed = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                sum += scan(csr);
+            }
+            double plain = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  decode %.0f M edges/s, CSR scan %.0f M edges/s (checksum %d)%n",
+                    rounds * csr.edgeCount() / compressed / 1e6,
+                    rounds * csr.edgeCount() / plain / 1e6, sum);
+        }
+    }
+
+    private static long scan(CompressedGraph g) {
+        long sum = 0;
+        Cursor c = g.new Cursor();
+        for (int u = 0; u < g.size(); u++) {
+            c.reset(u);
+            while (c.hasNext()) {
+                sum += c.next();
+            }
+        }
+        return sum;
+    }
+
+    private static long scan(CSRGraph g) {
+        long sum = 0;
+        for (int j = 0; j < g.edgeCount(); j++) {
+            sum += g.targets[j];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,217 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import util.GraphLoader;
+
+/**
+ * k-core decomposition of an undirected CSRGraph.
+ * The core number of a vertex is the largest k such that it belongs to
+ * a subgraph where every vertex has degree at least k. Vertices are also
+ * kept sorted by core number, so the k-core for any k is a contiguous
+ * slice and can be pulled out without another pass over the graph.
+ */
+public class CoreIndex {
+    private final int[] core;
+    // vertices in descending core order; the k-core is order[0 .. end[k])
+    private final int[] order;
+    private final int[] end;
+
+    private CoreIndex(int[] core) {
+        this.core = core;
+        int n = core.length;
+        int maxCore = 0;
+        for (int u = 0; u < n; u++) {
+            maxCore = Math.max(maxCore, core[u]);
+        }
+        // counting sort by descending core number
+        end = new int[maxCore + 2];
+        for (int u = 0; u < n; u++) {
+            end[core[u]]++;
+        }
+        for (int k = maxCore - 1; k >= 0; k--) {
+            end[k] += end[k + 1];
+        }
+        order = new int[n];
+        int[] fill = new int[maxCore + 1];
+        for (int k = 0; k <= maxCore; k++) {
+            fill[k] = end[k + 1];
+        }
+        for (int u = 0; u < n; u++) {
+            order[fill[core[u]]++] = u;
+        }
+    }
+
+    /**
+     * Batagelj and Zaversnik's O(n + m) bucket peeling: vertices sit in
+     * an array sorted by current degree, and removing one moves each
+     * of its remaining neighbors down one bucket with a single swap.
+     */
+    public static CoreIndex compute(CSRGraph g) {
+        int[] deg = new int[g.size()];
+        peel(g, deg);
+        return new CoreIndex(deg);
+    }
+
+    /**
+     * Returns the vertices in the order peeling removes them. Each vertex
+     * has at most degeneracy-many neighbors later in this order.
+     */
+    public static int[] degeneracyOrder(CSRGraph g) {
+        return peel(g, new int[g.size()]);
+    }
+
+    // Fills deg with core numbers and returns the removal order.
+    private static int[] peel(CSRGraph g, int[] deg) {
+        int n = g.size();
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+
+        int maxDeg = 0;
+        for (int u = 0; u < n; u++) {
+            deg[u] = offsets[u + 1] - offsets[u];
+            maxDeg = Math.max(maxDeg, deg[u]);
+        }
+        int[] bin = new int[maxDeg + 1];
+        for (int u = 0; u < n; u++) {
+            bin[deg[u]]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDeg; d++) {
+            int count = bin[d];
+            bin[d] = start;
+            start += count;
+        }
+        int[] pos = new int[n];
+        int[] vert = new int[n];
+        for (int u = 0; u < n; u++) {
+            pos[u] = bin[deg[u]]++;
+            vert[pos[u]] = u;
+        }
+        for (int d = maxDeg; d > 0; d--) {
+            bin[d] = bin[d - 1];
+        }
+        bin[0] = 0;
+
+        for (int i = 0; i < n; i++) {
+            int v = vert[i];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = targets[j];
+                if (deg[u] > deg[v]) {
+                    // swap u with the first vertex of its bucket, then
+                    // shrink the bucket so u falls into the one below
+                    int du = deg[u];
+                    int pu = pos[u];
+                    int pw = bin[du];
+                    int w = vert[pw];
+                    if (u != w) {
+                        pos[u] = pw;
+                        vert[pu] = w;
+                        pos[w] = pu;
+                        vert[pw] = u;
+                    }
+                    bin[du]++;
+                    deg[u]--;
+                }
+            }
+        }
+        return vert;
+    }
+
+    /**
+     * Parallel decomposition by h-index iteration: every vertex starts
+     * at its degree and is repeatedly lowered to the h-index of its
+     * neighbors' values until nothing changes, which is exactly its
+     * core number. Each round is an independent parallel pass over the
+     * vertices, which suits large graphs better than sequential peeling.
+     */
+    public static CoreIndex computeParallel(CSRGraph g) {
+        final int n = g.size();
+        final int[] offsets = g.offsets;
+        final int[] targets = g.targets;
+        final int[] core = new int[n];
+        for (int u = 0; u < n; u++) {
+            core[u] = offsets[u + 1] - offsets[u];
+        }
+
+        // Values only ever decrease and every value read is an upper
+        // bound of the final one, so updating in place is safe. Only
+        // neighbors of a vertex that changed need another look.
+        boolean[] active = new boolean[n];
+        Arrays.fill(active, true);
+        boolean changed = true;
+        while (changed) {
+            final boolean[] curr = active;
+            final boolean[] next = new boolean[n];
+            changed = IntStream.range(0, n).parallel().map(u -> {
+                if (!curr[u]) {
+                    return 0;
+                }
+                int h = hIndex(core, targets, offsets[u], offsets[u + 1], core[u]);
+                if (h == core[u]) {
+                    return 0;
+                }
+                core[u] = h;
+                for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                    next[targets[j]] = true;
+                }
+                return 1;
+            }).sum() > 0;
+            active = next;
+        }
+        return new CoreIndex(core);
+    }
+
+    // Largest h <= cap with at least h neighbors whose value is >= h.
+    private static int hIndex(int[] values, int[] targets, int start, int end, int cap) {
+        int[] count = new int[cap + 1];
+        for (int j = start; j < end; j++) {
+            count[Math.min(values[targets[j]], cap)]++;
+        }
+        int atLeast = 0;
+        for (int h = cap; h > 0; h--) {
+            atLeast += count[h];
+            if (atLeast >= h) {
+                return h;
+            }
+        }
+        return 0;
+    }
+
+    public int core(int u) {
+        return core[u];
+    }
+
+    public int maxCore() {
+        return end.length - 2;
+    }
+
+    /* Returns the dense indices of all vertices with core number >= k. */
+    public int[] atLeast(int k) {
+        if (k > maxCore()) {
+            return new int[0];
+        }
+        return Arrays.copyOf(order, end[Math.max(k, 0)]);
+    }
+
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        long start = System.nanoTime();
+        CoreIndex seq = compute(csr);
+        long seqNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        CoreIndex par = computeParallel(csr);
+        long parNanos = System.nanoTime() - start;
+
+        System.out.printf("max core %d (sequential %.1f ms), max core %d (parallel %.1f ms)%n",
+                seq.maxCore(), seqNanos / 1e6, par.maxCore(), parNanos / 1e6);
+        System.out.println("vertices in the max core: " + seq.atLeast(seq.maxCore()).length);
+    }
+}
@@ -0,0 +1,274 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import util.GraphLoader;
+
+/**
+ * Densest subgraph search on an undirected CSRGraph.
+ * Density here is |E(S)| / |S|, counting each undirected edge once.
+ *
+ * peel is Charikar's greedy peeling (the algorithm Khuller and Saha
+ * build on): repeatedly delete a vertex of minimum remaining degree
+ * and keep the intermediate set with the highest density. The result
+ * is at least half as dense as the optimum. Vertices are kept in a
+ * bucket queue of linked lists indexed by remaining degree, so the
+ * whole run is O(n + m).
+ *
+ * exact finds a provably densest subgraph with Goldberg's construction:
+ * a subgraph denser than g exists exactly when the min cut of a flow
+ * network parameterized by g has more than the source on its source
+ * side, so a binary search over g with a max-flow per step converges
+ * on the optimum. Use it on egonets, where n is in the thousands.
+ */
+public class DensestSubgraph {
+
+    /** A vertex set, as dense indices of the CSRGraph, and its density. */
+    public static class Result {
+        public final int[] vertices;
+        public final double density;
+
+        Result(int[] vertices, double density) {
+            this.vertices = vertices;
+            this.density = density;
+        }
+    }
+
+    public static Result peel(CSRGraph g) {
+        return peel(g, -1);
+    }
+
+    /**
+     * Peels g. Among vertices of equal minimum degree, keep is removed
+     * last; in an egonet the center is adjacent to everyone else, so
+     * this keeps the center in the result without losing the guarantee.
+     */
+    public static Result peel(CSRGraph g, int keep) {
+        int n = g.size();
+        if (n == 0) {
+            return new Result(new int[0], 0);
+        }
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+
+        int[] deg = new int[n];
+        int maxDeg = 0;
+        for (int u = 0; u < n; u++) {
+            deg[u] = offsets[u + 1] - offsets[u];
+            maxDeg = Math.max(maxDeg, deg[u]);
+        }
+
+        // bucket d is a doubly linked list of the vertices with degree d
+        int[] head = new int[maxDeg + 1];
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(head, -1);
+        for (int u = 0; u < n; u++) {
+            link(head, next, prev, deg[u], u);
+        }
+
+        boolean[] removed = new boolean[n];
+        int[] order = new int[n];
+        long edges = g.edgeCount() / 2;
+        double best = edges * 1.0 / n;
+        int bestStart = 0;
+        int d = 0;
+
+        for (int i = 0; i < n; i++) {
+            while (head[d] == -1) {
+                d++;
+            }
+            int v = head[d];
+            if (v == keep && next[v] != -1) {
+                v = next[v];
+            }
+            unlink(head, next, prev, deg[v], v);
+            removed[v] = true;
+            order[i] = v;
+            edges -= deg[v];
+
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int u = targets[j];
+                if (!removed[u]) {
+                    unlink(head, next, prev, deg[u], u);
+                    deg[u]--;
+                    link(head, next, prev, deg[u], u);
+                }
+            }
+            // a neighbor can only drop one bucket below the current one
+            d = Math.max(0, d - 1);
+
+            int remaining = n - i - 1;
+            if (remaining > 0 && edges * 1.0 / remaining > best) {
+                best = edges * 1.0 / remaining;
+                bestStart = i + 1;
+            }
+        }
+
+        int[] ret = Arrays.copyOfRange(order, bestStart, n);
+        return new Result(ret, best);
+    }
+
+    /**
+     * Returns a densest subgraph of g. Only the sink capacities depend
+     * on the guess, so one MaxFlow network is built and re-solved.
+     */
+    public static Result exact(CSRGraph g) {
+        if (g.edgeCount() == 0) {
+            return new Result(g.size() == 0 ? new int[0] : new int[] { 0 }, 0);
+        }
+        // Every vertex of a densest subgraph has at least its density in
+        // neighbors inside it, so it lies within the ceil(rho)-core for
+        // any rho up to the optimum; the peeling density is such a rho.
+        Result greedy = peel(g);
+        int k = (int) Math.ceil(greedy.density);
+        int[] core = CoreIndex.compute(g).atLeast(k);
+        Arrays.sort(core);
+        Result inCore = exact(g.subgraph(core), greedy.density);
+        if (inCore.density <= greedy.density) {
+            // nothing in the core beats the greedy set, whose ties may
+            // have broken differently from those of peeling the core
+            return greedy;
+        }
+
+        int[] ret = new int[inCore.vertices.length];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = core[inCore.vertices[i]];
+        }
+        return new Result(ret, inCore.density);
+    }
+
+    // Goldberg's search on g, which must contain a subgraph of density lower.
+    private static Result exact(CSRGraph g, double lower) {
+        int n = g.size();
+        long m = g.edgeCount() / 2;
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+
+        // vertices are 0..n-1, then the source and the sink
+        int s = n;
+        int t = n + 1;
+        MaxFlow flow = new MaxFlow(n + 2, 2 * n + (int) m);
+        int[] sinkArc = new int[n];
+        for (int u = 0; u < n; u++) {
+            flow.addArc(s, u, m);
+            sinkArc[u] = flow.addArc(u, t, m);
+            for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                if (u < targets[j]) {
+                    int e = flow.addArc(u, targets[j], 1);
+                    // the residual arc doubles as the reverse direction
+                    flow.setCapacity(e ^ 1, 1);
+                }
+            }
+        }
+
+        // Start from the peeling answer, which is within a factor of two,
+        // and stop once the bracket is narrower than the smallest gap
+        // between densities of distinct subgraphs, 1 / (n(n-1)).
+        Result best = peel(g);
+        double lo = Math.max(best.density, lower);
+        double hi = Math.min(2 * lo, (n - 1) / 2.0);
+        double gap = 1.0 / ((double) n * (n - 1));
+        while (hi - lo >= gap) {
+            double guess = (lo + hi) / 2;
+            for (int u = 0; u < n; u++) {
+                int d = offsets[u + 1] - offsets[u];
+                flow.setCapacity(sinkArc[u], m + 2 * guess - d);
+            }
+            flow.maxFlow(s, t);
+            boolean[] cut = flow.minCut(s);
+            int size = 0;
+            int[] set = new int[n];
+            for (int u = 0; u < n; u++) {
+                if (cut[u]) {
+                    set[size++] = u;
+                }
+            }
+            if (size > 0) {
+                set = Arrays.copyOf(set, size);
+                best = new Result(set, density(g, set));
+                // the cut found may beat the guess by a lot, so jump to it
+                lo = Math.max(guess, best.density);
+            } else {
+                hi = guess;
+            }
+        }
+        return best;
+    }
+
+    /* Returns |E(S)| / |S| for a set of dense indices of g. */
+    public static double density(CSRGraph g, int[] vertices) {
+        if (vertices.length == 0) {
+            return 0;
+        }
+        boolean[] in = new boolean[g.size()];
+        for (int u : vertices) {
+            in[u] = true;
+        }
+        long edges = 0;
+        for (int u : vertices) {
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                if (in[g.targets[j]]) {
+                    edges++;
+                }
+            }
+        }
+        return edges / 2.0 / vertices.length;
+    }
+
+    private static void link(int[] head, int[] next, int[] prev, int d, int u) {
+        prev[u] = -1;
+        next[u] = head[d];
+        if (head[d] != -1) {
+            prev[head[d]] = u;
+        }
+        head[d] = u;
+    }
+
+    private static void unlink(int[] head, int[] next, int[] prev, int d, int u) {
+        if (prev[u] != -1) {
+            next[prev[u]] = next[u];
+        } else {
+            head[d] = next[u];
+        }
+        if (next[u] != -1) {
+            prev[next[u]] = prev[u];
+        }
+    }
+
+    /**
+     * Peels the egonet of every vertex and prints the total time,
+     * then compares against the exact answer on the largest egonet.
+     */
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+
+        long start = System.nanoTime();
+        double total = 0;
+        for (Map.Entry<Integer, Vertex> entry : g.getVertices().entrySet()) {
+            CSRGraph ego = CSRGraph.egonet(g, entry.getKey(), true);
+            total += peel(ego, ego.indexOf(entry.getKey())).density;
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("Peeled %d egonets in %.1f ms, mean density %.3f%n",
+                g.getVertices().size(), nanos / 1e6, total / g.getVertices().size());
+
+        int center = -1;
+        for (Vertex v : g.getVertices().values()) {
+            if (center == -1 || v.degree() > g.getVertex(center).degree()) {
+                center = v.getVal();
+            }
+        }
+        CSRGraph ego = CSRGraph.egonet(g, center, true);
+        start = System.nanoTime();
+        Result exact = exact(ego);
+        nanos = System.nanoTime() - start;
+        System.out.printf("Egonet of %d (%d vertices): peel %.3f, exact %.3f in %.1f ms%n",
+                center, ego.size(), peel(ego).density, exact.density, nanos / 1e6);
+    }
+}
@@ -3,13 +3,20 @@ package graph;
 public class Edge {
     Vertex v1;
     Vertex v2;
-    float flow = 0;
+    // index into the graph's EdgeColumns; -1 until the graph numbers it
+    int id = -1;
 
     public Edge(Vertex v1, Vertex v2) {
         this.v1 = v1;
         this.v2 = v2;
     }
 
+    public Edge(Vertex v1, Vertex v2, int id) {
+        this.v1 = v1;
+        this.v2 = v2;
+        this.id = id;
+    }
+
     public Vertex getV1() {
         return v1;
     }
@@ -18,12 +25,16 @@ public class Edge {
         return v2;
     }
 
-    public void setFlow(float f) {
-        flow = f;
+    public int getId() {
+        return id;
     }
 
     public Vertex getOtherVertex(Vertex v) {
-        if (v.equals(v1)) {
+        if (v == v1) {
+            return v2;
+        } else if (v == v2) {
+            return v1;
+        } else if (v.equals(v1)) {
             return v2;
         } else if (v.equals(v2)) {
             return v1;
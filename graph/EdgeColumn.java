@@ -0,0 +1,72 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * One float property of every edge of a CapGraph, such as the flow used
+ * by Girvan-Newman or an edge weight.
+ * Values live in a primitive array indexed by Edge id instead of in the
+ * Edge objects, so a column costs nothing until an algorithm asks for
+ * it, and clearing it is a single Arrays.fill. Get a column through
+ * CapGraph.edgeColumn; an edge without an id gets the graph's next one
+ * when a value is first set on it.
+ * Edges start at the value of the last fill, 0 by default, whether
+ * they were added before or after it.
+ */
+public class EdgeColumn {
+    private final CapGraph graph;
+    private float[] values;
+    // value of every edge not set since the last fill
+    private float initial = 0;
+
+    EdgeColumn(CapGraph graph, int capacity) {
+        this.graph = graph;
+        values = new float[Math.max(capacity, 16)];
+    }
+
+    /* The initial value for edges not set yet, including those without an id. */
+    public float get(Edge e) {
+        return e.id >= 0 && e.id < values.length ? values[e.id] : initial;
+    }
+
+    public void set(Edge e, float value) {
+        int id = ensure(e);
+        values[id] = value;
+    }
+
+    public void add(Edge e, float delta) {
+        int id = ensure(e);
+        values[id] += delta;
+    }
+
+    public void fill(float value) {
+        Arrays.fill(values, value);
+        initial = value;
+    }
+
+    /* Makes room for edge ids below capacity in one step. */
+    void reserve(int capacity) {
+        if (capacity > values.length) {
+            grow(Math.max(capacity, 2 * values.length));
+        }
+    }
+
+    private void grow(int length) {
+        int old = values.length;
+        values = Arrays.copyOf(values, length);
+        if (initial != 0) {
+            Arrays.fill(values, old, length, initial);
+        }
+    }
+
+    // edges added after the column was made may be past the end
+    private int ensure(Edge e) {
+        if (e.id < 0) {
+            e.id = graph.nextEdgeId();
+        }
+        if (e.id >= values.length) {
+            grow(Math.max(e.id + 1, 2 * values.length));
+        }
+        return e.id;
+    }
+}
@@ -0,0 +1,424 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import util.IntHashSet;
+
+/**
+ * The out-edges of one vertex, in insertion order.
+ * Small lists are scanned linearly like an ArrayList. Once a list grows
+ * past INDEX_THRESHOLD it also keeps an open-addressing map from each
+ * neighbor's value to the slot of its first edge, so finding or removing
+ * the edge to a given neighbor is O(1) for hub users as well. Removal
+ * leaves a hole instead of shifting the rest of the list; holes are
+ * skipped when iterating and squeezed out once they pile up. Reads by
+ * position start from where the last one landed, so a loop over get(i)
+ * walks past the holes once rather than once per call.
+ *
+ * Removing through the List API, whether by position, by iterator or
+ * through removeAll and friends, takes the edge out of the graph: the
+ * matching entry in the in-edge list at the other end goes too, or in
+ * the out-edge list if this is an in-edge list.
+ *
+ * A list built in increasing neighbor order, or put in that order by
+ * normalize, is also searched by bisection while it is below the
+ * threshold.
+ */
+class EdgeList extends AbstractList<Edge> {
+    static final int INDEX_THRESHOLD = 16;
+    private static final int EMPTY = -1;
+
+    private final Vertex owner;
+    private Edge[] slots = new Edge[4];
+    // slots[0 .. end) is in use, size of them are not holes
+    private int end = 0;
+    private int size = 0;
+
+    // linear probing map from neighbor value to slot; null until needed
+    private int[] keys;
+    private int[] values;
+    private int entries = 0;
+    // edges whose neighbor already had an earlier edge in the map
+    private int repeats = 0;
+    // whether neighbor values strictly increase along the list
+    private boolean sorted = true;
+    private int last = Integer.MIN_VALUE;
+    // where the last positional read ended: cacheBefore edges lie before
+    // cacheSlot; valid while modCount equals cacheMod
+    private int cacheSlot = 0;
+    private int cacheBefore = 0;
+    private int cacheMod = -1;
+
+    EdgeList(Vertex owner) {
+        this.owner = owner;
+    }
+
+    private int key(Edge e) {
+        return e.getOtherVertex(owner).getVal();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(Edge e) {
+        if (end - size > size) {
+            compact();
+        }
+        if (end == slots.length) {
+            slots = Arrays.copyOf(slots, 2 * slots.length);
+        }
+        slots[end] = e;
+        int val = key(e);
+        if (val <= last) {
+            sorted = false;
+        }
+        last = val;
+        if (keys != null) {
+            index(val, end);
+        }
+        end++;
+        size++;
+        modCount++;
+        if (keys == null && size > INDEX_THRESHOLD) {
+            buildIndex();
+        }
+        return true;
+    }
+
+    @Override
+    public Edge get(int i) {
+        return slots[slotAt(i)];
+    }
+
+    @Override
+    public Edge remove(int i) {
+        int slot = slotAt(i);
+        Edge e = slots[slot];
+        removeSlot(slot);
+        // the hole left behind still has i live edges before it
+        cacheSlot = slot;
+        cacheBefore = i;
+        cacheMod = modCount;
+        unlink(e);
+        return e;
+    }
+
+    // Slot of the i-th edge; reads walk past holes rather than compact.
+    private int slotAt(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        if (end == size) {
+            return i;
+        }
+        int slot = 0;
+        int before = 0;
+        if (cacheMod == modCount) {
+            slot = cacheSlot;
+            before = cacheBefore;
+        }
+        if (i < before) {
+            // walk back to the slot that has i live edges before it
+            do {
+                slot--;
+                if (slots[slot] != null) {
+                    before--;
+                }
+            } while (before > i || slots[slot] == null);
+        } else {
+            for (; slots[slot] == null || before < i; slot++) {
+                if (slots[slot] != null) {
+                    before++;
+                }
+            }
+        }
+        cacheSlot = slot;
+        cacheBefore = i;
+        cacheMod = modCount;
+        return slot;
+    }
+
+    /* First edge to a neighbor with the given value, or null. */
+    Edge find(int val) {
+        int slot = slotOf(val);
+        return slot < 0 ? null : slots[slot];
+    }
+
+    /* Removes and returns the first edge to a neighbor with that value. */
+    Edge removeNeighbor(int val) {
+        int slot = slotOf(val);
+        if (slot < 0) {
+            return null;
+        }
+        Edge e = slots[slot];
+        removeSlot(slot);
+        return e;
+    }
+
+    private int slotOf(int val) {
+        if (keys != null) {
+            int mask = keys.length - 1;
+            for (int h = IntHashSet.hash(val) & mask; values[h] != EMPTY; h = (h + 1) & mask) {
+                if (keys[h] == val) {
+                    return values[h];
+                }
+            }
+            return -1;
+        }
+        if (sorted && end == size) {
+            int lo = 0;
+            int hi = end - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int k = key(slots[mid]);
+                if (k < val) {
+                    lo = mid + 1;
+                } else if (k > val) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+        for (int i = 0; i < end; i++) {
+            if (slots[i] != null && key(slots[i]) == val) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* Removes this exact edge object, not an equal one; true if found. */
+    boolean removeEdge(Edge e) {
+        int slot = slotOf(key(e));
+        if (slot < 0) {
+            return false;
+        }
+        // parallel edges to the same neighbor all come after the first
+        for (; slot < end; slot++) {
+            if (slots[slot] == e) {
+                removeSlot(slot);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Takes e out of the list at its other end, after a List API removal.
+    private void unlink(Edge e) {
+        Vertex other = e.getOtherVertex(owner);
+        EdgeList mirror = this == owner.edges ? other.inEdges : other.edges;
+        if (mirror != null && mirror != this) {
+            mirror.removeEdge(e);
+        }
+    }
+
+    // Leaves a hole at slot, so later slots keep their positions.
+    private void removeSlot(int slot) {
+        Edge e = slots[slot];
+        slots[slot] = null;
+        size--;
+        modCount++;
+        if (keys == null) {
+            return;
+        }
+        int val = key(e);
+        if (slotOf(val) != slot) {
+            // a repeat; the map still points at the first edge to val
+            repeats--;
+            return;
+        }
+        unindex(val);
+        if (repeats > 0) {
+            // the map only held the first edge to val; promote the next one
+            for (int i = slot + 1; i < end; i++) {
+                if (slots[i] != null && key(slots[i]) == val) {
+                    index(val, i);
+                    repeats--;
+                    return;
+                }
+            }
+        }
+    }
+
+    boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Sorts the list by neighbor value, keeping only the first edge to
+     * each neighbor, and optionally drops edges back to the owner.
+     * Returns the number of edges removed.
+     */
+    int normalize(boolean dropSelfLoops) {
+        if (sorted && !(dropSelfLoops && find(owner.getVal()) != null)) {
+            return 0;
+        }
+        compact();
+        // (value, slot) keys; the slot breaks ties, so the first of
+        // several parallel edges survives
+        long[] order = new long[end];
+        for (int i = 0; i < end; i++) {
+            order[i] = ((long) key(slots[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+        Edge[] old = Arrays.copyOf(slots, end);
+        int write = 0;
+        last = Integer.MIN_VALUE;
+        for (long k : order) {
+            int val = (int) (k >> 32);
+            if (write > 0 && val == last) {
+                continue;
+            }
+            if (dropSelfLoops && val == owner.getVal()) {
+                continue;
+            }
+            slots[write++] = old[(int) k];
+            last = val;
+        }
+        int removed = end - write;
+        Arrays.fill(slots, write, end, null);
+        end = write;
+        size = write;
+        sorted = true;
+        modCount++;
+        if (keys != null || size > INDEX_THRESHOLD) {
+            buildIndex();
+        }
+        return removed;
+    }
+
+    private void compact() {
+        int write = 0;
+        for (int i = 0; i < end; i++) {
+            if (slots[i] != null) {
+                slots[write++] = slots[i];
+            }
+        }
+        Arrays.fill(slots, write, end, null);
+        end = write;
+        if (keys != null) {
+            buildIndex();
+        }
+    }
+
+    private void buildIndex() {
+        int capacity = Integer.highestOneBit(Math.max(4, size) * 2) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        entries = 0;
+        repeats = 0;
+        for (int i = 0; i < end; i++) {
+            if (slots[i] != null) {
+                index(key(slots[i]), i);
+            }
+        }
+    }
+
+    // Maps val to slot unless an earlier edge to val is already there.
+    private void index(int val, int slot) {
+        if ((entries + 1) * 2 > keys.length) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldKeys.length];
+            Arrays.fill(values, EMPTY);
+            entries = 0;
+            for (int h = 0; h < oldKeys.length; h++) {
+                if (oldValues[h] != EMPTY) {
+                    index(oldKeys[h], oldValues[h]);
+                }
+            }
+        }
+        int mask = keys.length - 1;
+        int h = IntHashSet.hash(val) & mask;
+        while (values[h] != EMPTY) {
+            if (keys[h] == val) {
+                repeats++;
+                return;
+            }
+            h = (h + 1) & mask;
+        }
+        keys[h] = val;
+        values[h] = slot;
+        entries++;
+    }
+
+    // Deletes val with backward shifting, so no tombstones are needed.
+    private void unindex(int val) {
+        int mask = keys.length - 1;
+        int h = IntHashSet.hash(val) & mask;
+        while (values[h] != EMPTY && keys[h] != val) {
+            h = (h + 1) & mask;
+        }
+        if (values[h] == EMPTY) {
+            return;
+        }
+        int hole = h;
+        for (int i = (hole + 1) & mask; values[i] != EMPTY; i = (i + 1) & mask) {
+            int home = IntHashSet.hash(keys[i]) & mask;
+            // move i into the hole unless its home lies between them
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = EMPTY;
+        entries--;
+    }
+
+    @Override
+    public Iterator<Edge> iterator() {
+        return new Iterator<Edge>() {
+            private int next = advance(0);
+            private int last = -1;
+            private int expected = modCount;
+
+            private int advance(int i) {
+                while (i < end && slots[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            public Edge next() {
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance(next + 1);
+                return slots[last];
+            }
+
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+                Edge e = slots[last];
+                removeSlot(last);
+                last = -1;
+                expected = modCount;
+                unlink(e);
+            }
+        };
+    }
+}
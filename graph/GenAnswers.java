@@ -2,11 +2,7 @@ package graph;
 
 import java.io.PrintWriter;
 import util.GraphLoader;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.TreeSet;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -26,21 +22,18 @@ public class GenAnswers {
 
                 List<Graph> graphSCCs = g.getSCCs();
                 
-                List<Set<Integer>> sccs = new ArrayList<Set<Integer>>();
+                List<int[]> sccs = new ArrayList<int[]>();
 
                 for(Graph graph : graphSCCs) {
-                    HashMap<Integer, HashSet<Integer>> curr = graph.exportGraph();
-                    TreeSet<Integer> scc = new TreeSet<Integer>();
-                    for (Map.Entry<Integer, HashSet<Integer>> entry : curr.entrySet()) {
-                        scc.add(entry.getKey());
-                    }
+                    int[] scc = graph.exportSets().keys().toArray();
+                    Arrays.sort(scc);
                     sccs.add(scc);
                 }
                 // loop over SCCs
                 for(int j = 0; j < sccs.size(); j++) {
 
-                    Set<Integer> scc = sccs.get(j);
-                    for(Integer val : scc) {
+                    int[] scc = sccs.get(j);
+                    for(int val : scc) {
                         pw.print(val + " ");
                     }
                     pw.print("\n");
@@ -3,7 +3,10 @@ package graph;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import util.IntHashSet;
+import util.IntSetMap;
 
 public interface Graph {
     /* Creates a vertex with the given number. */
@@ -21,4 +24,20 @@ public interface Graph {
     
     /* Return the graph's connections in a readable format. */
     public HashMap<Integer, HashSet<Integer>> exportGraph();
+
+    /* Same as exportGraph, in primitive collections that do not box.
+     * This default copies exportGraph; CapGraph and OffHeapGraph build
+     * the sets directly. */
+    public default IntSetMap exportSets() {
+        HashMap<Integer, HashSet<Integer>> graph = exportGraph();
+        IntSetMap ret = new IntSetMap(graph.size());
+        for (Map.Entry<Integer, HashSet<Integer>> entry : graph.entrySet()) {
+            IntHashSet val = new IntHashSet(entry.getValue().size());
+            for (int v : entry.getValue()) {
+                val.add(v);
+            }
+            ret.put(entry.getKey(), val);
+        }
+        return ret;
+    }
 } 
@@ -0,0 +1,317 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds a stream of new edges into a CapGraph from any number of threads.
+ * Producers call add, which only appends to a shared buffer; full
+ * buffers go on a bounded queue, so a slow graph pushes back on the
+ * producers instead of buffering without limit. One background thread
+ * owns the graph: it takes every batch waiting on the queue, applies
+ * them together through CapGraph.addEdges, and then updates the derived
+ * state once per batch. That state is the weakly connected components,
+ * kept in a union-find over the graph's dense vertex indices, and the
+ * ingest counters.
+ *
+ * The graph must not be changed or read elsewhere while the ingester
+ * is running; call flush to wait until everything added so far is in
+ * the graph, and close to stop the thread. If applying a batch fails,
+ * the error is rethrown from later calls to add, flush and close.
+ */
+public class Ingester implements AutoCloseable {
+    public static final int DEFAULT_BATCH = 4096;
+    public static final int QUEUE_BATCHES = 64;
+
+    private final CapGraph g;
+    private final int batchSize;
+    private final BlockingQueue<int[][]> queue;
+    private final Thread worker;
+
+    // pending edges, guarded by this
+    private int[] from;
+    private int[] to;
+    private int pending = 0;
+    private long submitted = 0;
+    // batches taken from the buffer and not yet on the queue
+    private int handing = 0;
+
+    // owned by the worker; published under this
+    private int[] parent = new int[16];
+    // parent is set up for dense indices below known
+    private int known = 0;
+    private int components = 0;
+    private long applied = 0;
+    private long batches = 0;
+    private long applyNanos = 0;
+    private boolean closed = false;
+    private volatile Throwable failure;
+
+    private static final int[][] STOP = new int[0][];
+
+    public Ingester(CapGraph g) {
+        this(g, DEFAULT_BATCH);
+    }
+
+    public Ingester(CapGraph g, int batchSize) {
+        this.g = g;
+        this.batchSize = batchSize;
+        from = new int[batchSize];
+        to = new int[batchSize];
+        queue = new LinkedBlockingQueue<int[][]>(QUEUE_BATCHES);
+        // the graph may already have edges
+        ensure(g.size() - 1);
+        for (int u = 0; u < g.size(); u++) {
+            Vertex v = g.getVertexAt(u);
+            for (Edge e : v.getEdges()) {
+                int w = g.indexOf(e.getOtherVertex(v).getVal());
+                if (w >= 0) {
+                    union(u, w);
+                }
+            }
+        }
+        worker = new Thread(this::run, "graph-ingester");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /* Queues the edge from -> to. Safe to call from any thread. */
+    public void add(int from, int to) {
+        int[][] full = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Ingester is closed!");
+            }
+            checkFailure();
+            this.from[pending] = from;
+            this.to[pending] = to;
+            pending++;
+            submitted++;
+            if (pending == batchSize) {
+                full = takePending();
+                handing++;
+            }
+        }
+        if (full != null) {
+            try {
+                put(full);
+            } finally {
+                synchronized (this) {
+                    handing--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /* Queues all of the given edges. */
+    public void addAll(int[] from, int[] to) {
+        for (int i = 0; i < from.length; i++) {
+            add(from[i], to[i]);
+        }
+    }
+
+    // Hands the pending buffer over; the caller holds the lock.
+    private int[][] takePending() {
+        int[][] batch = { Arrays.copyOf(from, pending), Arrays.copyOf(to, pending) };
+        pending = 0;
+        return batch;
+    }
+
+    // Waits for room on the queue, giving up if the worker has died.
+    private void put(int[][] batch) {
+        try {
+            while (!queue.offer(batch, 10, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing edges!", e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Applying edges failed!", failure);
+        }
+    }
+
+    /**
+     * Sends the partly filled buffer and waits until every edge added so
+     * far has been applied to the graph.
+     */
+    public void flush() {
+        int[][] batch;
+        long target;
+        synchronized (this) {
+            batch = pending > 0 ? takePending() : null;
+            target = submitted;
+            if (batch != null) {
+                handing++;
+            }
+        }
+        if (batch != null) {
+            try {
+                put(batch);
+            } finally {
+                synchronized (this) {
+                    handing--;
+                    notifyAll();
+                }
+            }
+        }
+        synchronized (this) {
+            while (applied < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            checkFailure();
+        }
+    }
+
+    /**
+     * Stops further adds, waits for producers still handing over a full
+     * buffer, flushes, and then stops the background thread.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (handing > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        flush();
+        put(STOP);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<int[][]> drained = new ArrayList<int[][]>();
+        try {
+            while (true) {
+                drained.clear();
+                drained.add(queue.take());
+                queue.drainTo(drained);
+                boolean stop = false;
+                int m = 0;
+                for (int[][] batch : drained) {
+                    if (batch == STOP) {
+                        stop = true;
+                    } else {
+                        m += batch[0].length;
+                    }
+                }
+                if (m > 0) {
+                    apply(drained, m);
+                }
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // errors such as running out of memory as well, so that
+            // producers and flush stop waiting for this thread
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    // Applies everything drained from the queue as one group.
+    private void apply(List<int[][]> drained, int m) {
+        long start = System.nanoTime();
+        int[] allFrom = new int[m];
+        int[] allTo = new int[m];
+        int k = 0;
+        for (int[][] batch : drained) {
+            if (batch != STOP) {
+                System.arraycopy(batch[0], 0, allFrom, k, batch[0].length);
+                System.arraycopy(batch[1], 0, allTo, k, batch[1].length);
+                k += batch[0].length;
+            }
+        }
+        g.addEdges(allFrom, allTo);
+
+        synchronized (this) {
+            ensure(g.size() - 1);
+            for (int i = 0; i < m; i++) {
+                union(g.indexOf(allFrom[i]), g.indexOf(allTo[i]));
+            }
+            applied += m;
+            batches++;
+            applyNanos += System.nanoTime() - start;
+            notifyAll();
+        }
+    }
+
+    // Every dense index up to u becomes a component of its own.
+    private void ensure(int u) {
+        if (u >= parent.length) {
+            parent = Arrays.copyOf(parent, Math.max(u + 1, 2 * parent.length));
+        }
+        for (int v = known; v <= u; v++) {
+            parent[v] = v;
+            components++;
+        }
+        known = Math.max(known, u + 1);
+    }
+
+    private int find(int u) {
+        while (parent[u] != u) {
+            // path halving
+            parent[u] = parent[parent[u]];
+            u = parent[u];
+        }
+        return u;
+    }
+
+    private void union(int u, int v) {
+        int ru = find(u);
+        int rv = find(v);
+        if (ru != rv) {
+            parent[ru] = rv;
+            components--;
+        }
+    }
+
+    /* Weakly connected components among the vertices applied so far. */
+    public synchronized int componentCount() {
+        return components;
+    }
+
+    public synchronized long getApplied() {
+        return applied;
+    }
+
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    /* Edges applied per second of time spent applying them. */
+    public synchronized double edgesPerSecond() {
+        return applyNanos == 0 ? 0 : applied / (applyNanos / 1e9);
+    }
+}
@@ -0,0 +1,178 @@
+package graph;
+
+import util.GraphLoader;
+
+/**
+ * Intersection kernels for sorted, duplicate-free int slices, such as the
+ * adjacency lists of a CSRGraph. Every kernel writes the common values
+ * into out (if it is not null) and returns how many there were.
+ *
+ * MERGE is the plain two-pointer merge. GALLOP walks the shorter list and
+ * finds each value in the longer one by exponential then binary search,
+ * which wins when one side is much longer, such as a hub against a
+ * leaf. BLOCK compares four values of each side at once with no
+ * data-dependent branches inside the block, the same shape as a SIMD
+ * all-pairs compare, so the JIT can keep it in registers. ADAPTIVE picks
+ * GALLOP or BLOCK from the size ratio.
+ */
+public class Intersect {
+
+    public interface Kernel {
+        int intersect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out);
+    }
+
+    // above this size ratio galloping beats scanning both lists
+    public static final int GALLOP_RATIO = 32;
+
+    public static final Kernel MERGE = Intersect::merge;
+    public static final Kernel GALLOP = Intersect::gallop;
+    public static final Kernel BLOCK = Intersect::block;
+    public static final Kernel ADAPTIVE = Intersect::adaptive;
+
+    public static int merge(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        return merge(a, aFrom, aTo, b, bFrom, bTo, out, 0);
+    }
+
+    // Merge that appends to out starting at count; returns the new count.
+    private static int merge(int[] a, int i, int aTo, int[] b, int j, int bTo, int[] out, int count) {
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[count] = x;
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    public static int gallop(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        if (aTo - aFrom > bTo - bFrom) {
+            return gallop(b, bFrom, bTo, a, aFrom, aTo, out);
+        }
+        int count = 0;
+        int lo = bFrom;
+        for (int i = aFrom; i < aTo && lo < bTo; i++) {
+            int x = a[i];
+            // double the step until b[lo + step] >= x, then binary search
+            int step = 1;
+            while (lo + step < bTo && b[lo + step] < x) {
+                step <<= 1;
+            }
+            int hi = Math.min(lo + step, bTo - 1);
+            lo += step >> 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (b[mid] < x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (b[lo] == x) {
+                if (out != null) {
+                    out[count] = x;
+                }
+                count++;
+                lo++;
+            } else if (b[lo] < x) {
+                // x is past the end of b
+                break;
+            }
+        }
+        return count;
+    }
+
+    public static int block(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        int count = 0;
+        int i = aFrom;
+        int j = bFrom;
+        while (i + 4 <= aTo && j + 4 <= bTo) {
+            int b0 = b[j];
+            int b1 = b[j + 1];
+            int b2 = b[j + 2];
+            int b3 = b[j + 3];
+            for (int k = i; k < i + 4; k++) {
+                int x = a[k];
+                // at most one of these can hit, since b has no repeats
+                int hit = (x == b0 ? 1 : 0) | (x == b1 ? 1 : 0)
+                        | (x == b2 ? 1 : 0) | (x == b3 ? 1 : 0);
+                if (out != null && hit != 0) {
+                    out[count] = x;
+                }
+                count += hit;
+            }
+            int aMax = a[i + 3];
+            if (aMax <= b3) {
+                i += 4;
+            }
+            if (b3 <= aMax) {
+                j += 4;
+            }
+        }
+        return merge(a, i, aTo, b, j, bTo, out, count);
+    }
+
+    public static int adaptive(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        int sa = aTo - aFrom;
+        int sb = bTo - bFrom;
+        if (sa > GALLOP_RATIO * sb || sb > GALLOP_RATIO * sa) {
+            return gallop(a, aFrom, aTo, b, bFrom, bTo, out);
+        }
+        return block(a, aFrom, aTo, b, bFrom, bTo, out);
+    }
+
+    /**
+     * Intersects the neighbor lists of both endpoints of every edge in
+     * the graph with each kernel and prints the time relative to MERGE.
+     */
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        String[] names = { "MERGE", "GALLOP", "BLOCK", "ADAPTIVE" };
+        Kernel[] kernels = { MERGE, GALLOP, BLOCK, ADAPTIVE };
+        int rounds = 20;
+        double mergeNanos = 0;
+        for (int k = 0; k < kernels.length; k++) {
+            // keep the best round so JIT warm-up doesn't count
+            long best = Long.MAX_VALUE;
+            long found = 0;
+            for (int r = 0; r < rounds; r++) {
+                long start = System.nanoTime();
+                found = overlapAll(csr, kernels[k]);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (k == 0) {
+                mergeNanos = best;
+            }
+            System.out.printf("%-8s %d common neighbors over %d arcs, %.2f ms (%.2fx)%n",
+                    names[k], found, csr.edgeCount(), best / 1e6, mergeNanos / best);
+        }
+    }
+
+    private static long overlapAll(CSRGraph g, Kernel kernel) {
+        long found = 0;
+        for (int u = 0; u < g.size(); u++) {
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                int v = g.targets[j];
+                found += kernel.intersect(g.targets, g.offsets[u], g.offsets[u + 1],
+                        g.targets, g.offsets[v], g.offsets[v + 1], null);
+            }
+        }
+        return found;
+    }
+}
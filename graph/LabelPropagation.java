@@ -0,0 +1,154 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Community detection by asynchronous label propagation.
+ * Every vertex starts in its own community and repeatedly adopts the
+ * label carried by most of its neighbors, ties broken at random. Each
+ * round visits the vertices in a fresh random order, one block at a
+ * time; a block holds about 1/64 of the graph, at most BLOCK vertices.
+ * A block's new labels are computed across the common fork-join pool
+ * from the labels as they stood when the block began, then written
+ * back, so later blocks already see earlier changes and the result does
+ * not depend on thread timing. The run stops once a round changes
+ * nothing or after maxIterations rounds.
+ * Every round is O(m).
+ */
+public class LabelPropagation {
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    // most vertices whose labels are computed from the same snapshot
+    public static final int BLOCK = 2048;
+
+    private final CSRGraph g;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private long seed = 42;
+    private int iterations;
+
+    public LabelPropagation(CSRGraph g) {
+        this.g = g;
+    }
+
+    public LabelPropagation setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Seeds the visiting order and the tie breaks. Ties at a vertex are
+     * broken by a generator derived from the seed, the round and the
+     * vertex, so the same seed gives the same communities.
+     */
+    public LabelPropagation setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /* Rounds used by the last run. */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the community of every dense vertex, numbered 0..k-1 in
+     * order of each community's lowest vertex.
+     */
+    public int[] run() {
+        final int n = g.size();
+        final int[] offsets = g.offsets;
+        final int[] targets = g.targets;
+        final int[] labels = new int[n];
+        final int[] order = new int[n];
+        // small blocks, or neighbors in one block flip labels in lockstep
+        final int block = Math.max(16, Math.min(BLOCK, n / 64));
+        final int[] next = new int[Math.min(n, block)];
+        for (int u = 0; u < n; u++) {
+            labels[u] = u;
+            order[u] = u;
+        }
+        // per-thread label -> count map: counts is indexed by label and
+        // touched lists the labels to clear afterwards
+        final ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(
+                () -> new int[][] { new int[n], new int[n] });
+
+        Random rng = new Random(seed);
+        iterations = 0;
+        boolean changed = true;
+        while (changed && iterations < maxIterations) {
+            for (int i = n - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            final long round = rng.nextLong();
+            changed = false;
+            for (int lo = 0; lo < n; lo += block) {
+                final int start = lo;
+                IntStream.range(lo, Math.min(n, lo + block)).parallel().forEach(i -> {
+                    int u = order[i];
+                    int[][] maps = scratch.get();
+                    next[i - start] = offsets[u] == offsets[u + 1] ? labels[u]
+                            : mostFrequent(u, labels, offsets, targets, maps[0], maps[1], round);
+                });
+                for (int i = lo; i < Math.min(n, lo + block); i++) {
+                    if (labels[order[i]] != next[i - lo]) {
+                        labels[order[i]] = next[i - lo];
+                        changed = true;
+                    }
+                }
+            }
+            iterations++;
+        }
+        return normalize(labels);
+    }
+
+    // Picks u's next label; keeps the current one if it is among the best.
+    private static int mostFrequent(int u, int[] labels, int[] offsets, int[] targets,
+            int[] counts, int[] touched, long round) {
+        int size = 0;
+        int most = 0;
+        for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+            int label = labels[targets[j]];
+            if (counts[label] == 0) {
+                touched[size++] = label;
+            }
+            counts[label]++;
+            most = Math.max(most, counts[label]);
+        }
+
+        int current = labels[u];
+        int best = current;
+        if (counts[current] != most) {
+            // reservoir-sample one of the tied labels
+            int ties = 0;
+            SplittableRandom rng = new SplittableRandom(round + u * 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < size; i++) {
+                if (counts[touched[i]] == most && rng.nextInt(++ties) == 0) {
+                    best = touched[i];
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            counts[touched[i]] = 0;
+        }
+        return best;
+    }
+
+    private static int[] normalize(int[] labels) {
+        int[] renumber = new int[labels.length];
+        Arrays.fill(renumber, -1);
+        int next = 0;
+        int[] ret = new int[labels.length];
+        for (int u = 0; u < labels.length; u++) {
+            if (renumber[labels[u]] == -1) {
+                renumber[labels[u]] = next++;
+            }
+            ret[u] = renumber[labels[u]];
+        }
+        return ret;
+    }
+}
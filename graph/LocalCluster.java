@@ -0,0 +1,221 @@
+package graph;
+
+import java.util.Arrays;
+import util.GraphLoader;
+
+/**
+ * Local community detection around a seed vertex, after Andersen, Chung
+ * and Lang.
+ * An approximate personalized PageRank vector is built by pushing
+ * residual mass out of any vertex u holding at least epsilon * d(u),
+ * then the vertices are swept in order of p(u) / d(u) and the prefix of
+ * lowest conductance is returned. Only vertices that receive mass are
+ * ever touched, so a query costs O(1 / (epsilon * alpha)) pushes no
+ * matter how large the graph is.
+ *
+ * The p and r vectors are dense arrays allocated once per instance and
+ * cleared through the list of touched vertices, so they behave like
+ * sparse maps without hashing. An instance is not thread-safe.
+ */
+public class LocalCluster {
+    public static final double DEFAULT_ALPHA = 0.15;
+    public static final double DEFAULT_EPSILON = 1e-5;
+
+    private final CSRGraph g;
+    private double alpha = DEFAULT_ALPHA;
+    private double epsilon = DEFAULT_EPSILON;
+
+    private final double[] p;
+    private final double[] r;
+    private final boolean[] queued;
+    private int[] touched;
+    private int touchedSize;
+    private int[] queue;
+    private int head;
+    private int tail;
+    private double conductance;
+    private int pushes;
+
+    public LocalCluster(CSRGraph g) {
+        this.g = g;
+        int n = g.size();
+        p = new double[n];
+        r = new double[n];
+        queued = new boolean[n];
+        touched = new int[16];
+        queue = new int[16];
+    }
+
+    public LocalCluster setAlpha(double alpha) {
+        this.alpha = alpha;
+        return this;
+    }
+
+    /* Smaller epsilon explores further and finds larger communities. */
+    public LocalCluster setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        return this;
+    }
+
+    /**
+     * Returns the community around the vertex with the given value, as
+     * dense indices of the graph.
+     */
+    public int[] community(int seedId) {
+        int seed = g.indexOf(seedId);
+        if (seed < 0) {
+            throw new IllegalArgumentException("Vertex not found!");
+        }
+        push(seed);
+        int[] ret = sweep();
+        for (int i = 0; i < touchedSize; i++) {
+            int u = touched[i];
+            p[u] = 0;
+            r[u] = 0;
+            queued[u] = false;
+        }
+        touchedSize = 0;
+        return ret;
+    }
+
+    private void touch(int u) {
+        if (p[u] == 0 && r[u] == 0) {
+            if (touchedSize == touched.length) {
+                touched = Arrays.copyOf(touched, 2 * touched.length);
+            }
+            touched[touchedSize++] = u;
+        }
+    }
+
+    // Lazy-walk push loop over a FIFO of vertices above the threshold.
+    private void push(int seed) {
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+        touch(seed);
+        r[seed] = 1;
+        head = 0;
+        tail = 0;
+        enqueue(seed);
+        pushes = 0;
+
+        while (head < tail) {
+            int u = queue[head++];
+            queued[u] = false;
+            int d = offsets[u + 1] - offsets[u];
+            if (d == 0) {
+                p[u] += r[u];
+                r[u] = 0;
+                continue;
+            }
+            pushes++;
+            double mass = r[u];
+            p[u] += alpha * mass;
+            r[u] = (1 - alpha) * mass / 2;
+            double share = (1 - alpha) * mass / (2 * d);
+            for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                int v = targets[j];
+                touch(v);
+                r[v] += share;
+                if (!queued[v] && r[v] >= epsilon * (offsets[v + 1] - offsets[v])) {
+                    enqueue(v);
+                }
+            }
+            // u keeps half of its mass and may still be above the bar
+            if (!queued[u] && r[u] >= epsilon * d) {
+                enqueue(u);
+            }
+        }
+    }
+
+    private void enqueue(int u) {
+        if (tail == queue.length) {
+            if (head > queue.length / 2) {
+                System.arraycopy(queue, head, queue, 0, tail - head);
+            } else {
+                queue = Arrays.copyOf(queue, 2 * queue.length);
+                System.arraycopy(queue, head, queue, 0, tail - head);
+            }
+            tail -= head;
+            head = 0;
+        }
+        queue[tail++] = u;
+        queued[u] = true;
+    }
+
+    // Sweeps the touched vertices by p(u) / d(u), reusing queued as the set.
+    private int[] sweep() {
+        int size = 0;
+        int[] members = new int[touchedSize];
+        double[] rank = new double[touchedSize];
+        for (int i = 0; i < touchedSize; i++) {
+            int u = touched[i];
+            if (p[u] > 0 && g.degree(u) > 0) {
+                members[size++] = u;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            // negated, so the ascending sort puts the highest first
+            rank[i] = -p[members[i]] / g.degree(members[i]);
+        }
+        int[] order = SpectralBisection.sortByValue(rank, size);
+
+        double total = g.edgeCount();
+        double volume = 0;
+        double cut = 0;
+        conductance = 1;
+        int bestSize = Math.min(size, 1);
+        for (int i = 0; i < size; i++) {
+            int u = members[order[i]];
+            queued[u] = true;
+            int inside = 0;
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                if (queued[g.targets[j]]) {
+                    inside++;
+                }
+            }
+            volume += g.degree(u);
+            cut += g.degree(u) - 2 * inside;
+            double smaller = Math.min(volume, total - volume);
+            if (smaller > 0 && cut / smaller < conductance) {
+                conductance = cut / smaller;
+                bestSize = i + 1;
+            }
+        }
+
+        int[] ret = new int[bestSize];
+        for (int i = 0; i < bestSize; i++) {
+            ret[i] = members[order[i]];
+        }
+        return ret;
+    }
+
+    /* Conductance of the community returned by the last query. */
+    public double conductance() {
+        return conductance;
+    }
+
+    /* Number of pushes made by the last query. */
+    public int getPushes() {
+        return pushes;
+    }
+
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        int seed = 0;
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        if (args.length > 1) {
+            seed = Integer.parseInt(args[1]);
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        LocalCluster local = new LocalCluster(CSRGraph.fromCapGraph(g, true));
+
+        long start = System.nanoTime();
+        int[] community = local.community(seed);
+        System.out.printf("%d vertices around %d, conductance %.4f, %d pushes in %.2f ms%n",
+                community.length, seed, local.conductance(), local.getPushes(),
+                (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,328 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import util.GraphLoader;
+
+/**
+ * Community detection by Louvain modularity optimization.
+ * Each level starts with every vertex in its own community and moves
+ * vertices to the neighboring community with the best modularity gain
+ * until a sweep no longer helps. The communities then become the
+ * vertices of a weighted, coarsened CSR graph (internal edges turn into
+ * self-loops) and the next level runs on that. The run ends when a level
+ * moves nothing or no longer improves modularity.
+ *
+ * Local moving runs on the common fork-join pool. Community degree
+ * totals are shared doubles updated with compare-and-set, so a vertex may
+ * decide on slightly stale totals; each sweep is followed by an exact
+ * modularity check, and a sweep that does not improve it ends the level.
+ */
+public class Louvain {
+    public static final int MAX_SWEEPS = 50;
+    public static final double MIN_GAIN = 1e-6;
+
+    // one level of the hierarchy, stored as a weighted CSR graph
+    private static class Level {
+        final int n;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        // weight of edges folded into each vertex, counted in both directions
+        final double[] self;
+        final double[] degree;
+
+        Level(int n, int[] offsets, int[] targets, double[] weights, double[] self) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.self = self;
+            degree = new double[n];
+            for (int u = 0; u < n; u++) {
+                degree[u] = self[u];
+                for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                    degree[u] += weights[j];
+                }
+            }
+        }
+    }
+
+    private final CSRGraph g;
+    // levels.get(i)[u] is the community of level-i vertex u
+    private final List<int[]> levels = new ArrayList<int[]>();
+    private final List<Double> levelModularity = new ArrayList<Double>();
+    private final List<Long> levelNanos = new ArrayList<Long>();
+
+    public Louvain(CSRGraph g) {
+        this.g = g;
+    }
+
+    /**
+     * Runs every level and returns the final community of each dense
+     * vertex of the graph.
+     */
+    public int[] run() {
+        levels.clear();
+        levelModularity.clear();
+        levelNanos.clear();
+
+        int n = g.size();
+        double[] weights = new double[g.edgeCount()];
+        Arrays.fill(weights, 1);
+        Level level = new Level(n, g.offsets, g.targets, weights, new double[n]);
+
+        while (true) {
+            long start = System.nanoTime();
+            int[] community = new int[level.n];
+            double q = moveVertices(level, community);
+            int count = renumber(community);
+            if (count == level.n || q - modularity() < MIN_GAIN) {
+                break;
+            }
+            levels.add(community);
+            levelModularity.add(q);
+            level = aggregate(level, community, count);
+            levelNanos.add(System.nanoTime() - start);
+        }
+        return membership(levels.size() - 1);
+    }
+
+    public int levelCount() {
+        return levels.size();
+    }
+
+    /* Community of every original dense vertex after the given level. */
+    public int[] membership(int level) {
+        int[] ret = new int[g.size()];
+        for (int u = 0; u < ret.length; u++) {
+            ret[u] = u;
+        }
+        for (int i = 0; i <= level; i++) {
+            int[] community = levels.get(i);
+            for (int u = 0; u < ret.length; u++) {
+                ret[u] = community[ret[u]];
+            }
+        }
+        return ret;
+    }
+
+    public double modularity(int level) {
+        return levelModularity.get(level);
+    }
+
+    public double modularity() {
+        return levels.isEmpty() ? 0 : levelModularity.get(levels.size() - 1);
+    }
+
+    public long nanos(int level) {
+        return levelNanos.get(level);
+    }
+
+    // Local moving phase; fills community and returns its modularity.
+    private double moveVertices(final Level level, final int[] community) {
+        final int n = level.n;
+        double twoM = 0;
+        for (int u = 0; u < n; u++) {
+            twoM += level.degree[u];
+            community[u] = u;
+        }
+        if (twoM == 0) {
+            return 0;
+        }
+        // bits of the total degree of each community
+        final AtomicLongArray total = new AtomicLongArray(n);
+        for (int u = 0; u < n; u++) {
+            total.set(u, Double.doubleToRawLongBits(level.degree[u]));
+        }
+        final double m2 = twoM;
+        final ThreadLocal<double[]> weightTo = ThreadLocal.withInitial(() -> new double[n]);
+        final ThreadLocal<int[]> touched = ThreadLocal.withInitial(() -> new int[n]);
+
+        double q = modularity(level, community, m2);
+        // parallel moves can undo each other's gains, so a sweep that
+        // lowers modularity is rolled back to the partition before it
+        int[] before = new int[n];
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            System.arraycopy(community, 0, before, 0, n);
+            int moved = IntStream.range(0, n).parallel().map(u -> {
+                return moveVertex(level, u, community, total, m2, weightTo.get(), touched.get());
+            }).sum();
+            double next = modularity(level, community, m2);
+            if (next < q) {
+                System.arraycopy(before, 0, community, 0, n);
+                break;
+            }
+            boolean done = moved == 0 || next - q < MIN_GAIN;
+            q = next;
+            if (done) {
+                break;
+            }
+        }
+        return q;
+    }
+
+    // Moves u to its best neighboring community; returns 1 if it moved.
+    private static int moveVertex(Level level, int u, int[] community, AtomicLongArray total,
+            double m2, double[] weightTo, int[] touched) {
+        int from = community[u];
+        double ku = level.degree[u];
+        int size = 0;
+        for (int j = level.offsets[u]; j < level.offsets[u + 1]; j++) {
+            int c = community[level.targets[j]];
+            if (weightTo[c] == 0) {
+                touched[size++] = c;
+            }
+            weightTo[c] += level.weights[j];
+        }
+
+        // gain of joining c, up to a constant: k_u,c - k_u * tot_c / 2m
+        double fromTotal = Double.longBitsToDouble(total.get(from)) - ku;
+        int best = from;
+        double bestGain = weightTo[from] - ku * fromTotal / m2;
+        for (int i = 0; i < size; i++) {
+            int c = touched[i];
+            if (c == from) {
+                continue;
+            }
+            double gain = weightTo[c] - ku * Double.longBitsToDouble(total.get(c)) / m2;
+            if (gain > bestGain + 1e-12 || (gain == bestGain && c < best)) {
+                best = c;
+                bestGain = gain;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            weightTo[touched[i]] = 0;
+        }
+        if (best == from) {
+            return 0;
+        }
+        add(total, from, -ku);
+        add(total, best, ku);
+        community[u] = best;
+        return 1;
+    }
+
+    private static void add(AtomicLongArray total, int c, double delta) {
+        while (true) {
+            long bits = total.get(c);
+            long next = Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + delta);
+            if (total.compareAndSet(c, bits, next)) {
+                return;
+            }
+        }
+    }
+
+    private static double modularity(Level level, int[] community, double m2) {
+        double[] inside = new double[level.n];
+        double[] total = new double[level.n];
+        for (int u = 0; u < level.n; u++) {
+            int c = community[u];
+            total[c] += level.degree[u];
+            inside[c] += level.self[u];
+            for (int j = level.offsets[u]; j < level.offsets[u + 1]; j++) {
+                if (community[level.targets[j]] == c) {
+                    inside[c] += level.weights[j];
+                }
+            }
+        }
+        double q = 0;
+        for (int c = 0; c < level.n; c++) {
+            q += inside[c] / m2 - (total[c] / m2) * (total[c] / m2);
+        }
+        return q;
+    }
+
+    // Renumbers communities to 0..k-1 in place and returns k.
+    private static int renumber(int[] community) {
+        int[] ids = new int[community.length];
+        Arrays.fill(ids, -1);
+        int count = 0;
+        for (int u = 0; u < community.length; u++) {
+            if (ids[community[u]] == -1) {
+                ids[community[u]] = count++;
+            }
+            community[u] = ids[community[u]];
+        }
+        return count;
+    }
+
+    // Builds the coarsened graph with one vertex per community.
+    private static Level aggregate(Level level, int[] community, int count) {
+        // group the vertices of each community together
+        int[] start = new int[count + 1];
+        for (int u = 0; u < level.n; u++) {
+            start[community[u] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] members = new int[level.n];
+        int[] fill = Arrays.copyOf(start, count);
+        for (int u = 0; u < level.n; u++) {
+            members[fill[community[u]]++] = u;
+        }
+
+        int[] offsets = new int[count + 1];
+        int[] targets = new int[level.targets.length];
+        double[] weights = new double[level.targets.length];
+        double[] self = new double[count];
+        double[] weightTo = new double[count];
+        int[] touched = new int[count];
+        int m = 0;
+        for (int c = 0; c < count; c++) {
+            int size = 0;
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                int u = members[i];
+                self[c] += level.self[u];
+                for (int j = level.offsets[u]; j < level.offsets[u + 1]; j++) {
+                    int d = community[level.targets[j]];
+                    if (d == c) {
+                        self[c] += level.weights[j];
+                    } else {
+                        if (weightTo[d] == 0) {
+                            touched[size++] = d;
+                        }
+                        weightTo[d] += level.weights[j];
+                    }
+                }
+            }
+            Arrays.sort(touched, 0, size);
+            for (int i = 0; i < size; i++) {
+                targets[m] = touched[i];
+                weights[m] = weightTo[touched[i]];
+                weightTo[touched[i]] = 0;
+                m++;
+            }
+            offsets[c + 1] = m;
+        }
+        return new Level(count, offsets, Arrays.copyOf(targets, m),
+                Arrays.copyOf(weights, m), self);
+    }
+
+    public static void main(String[] args) {
+        String filename = "facebook_2000.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        Louvain louvain = new Louvain(csr);
+        louvain.run();
+        for (int i = 0; i < louvain.levelCount(); i++) {
+            int[] membership = louvain.membership(i);
+            int count = 0;
+            for (int c : membership) {
+                count = Math.max(count, c + 1);
+            }
+            System.out.printf("level %d: %d communities, modularity %.4f, %.1f ms%n",
+                    i, count, louvain.modularity(i), louvain.nanos(i) / 1e6);
+        }
+        System.out.printf("final modularity %.4f%n", louvain.modularity());
+    }
+}
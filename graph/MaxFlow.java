@@ -0,0 +1,164 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Dinic max-flow solver over primitive arrays.
+ * Arcs are stored in pairs, so arc e and its residual arc e ^ 1 sit
+ * next to each other. Capacities set with addArc/setCapacity are kept
+ * as a baseline; reset() restores it so the same network can be solved
+ * again with a few capacities changed, without reallocating anything.
+ */
+public class MaxFlow {
+    private static final double EPS = 1e-9;
+
+    private final int n;
+    private final int[] head;
+    private int[] next;
+    private int[] to;
+    private double[] cap;
+    private double[] base;
+    private int arcs = 0;
+
+    private final int[] level;
+    private final int[] iter;
+    private final int[] queue;
+    private int[] path;
+
+    public MaxFlow(int n, int expectedArcs) {
+        this.n = n;
+        head = new int[n];
+        Arrays.fill(head, -1);
+        int size = Math.max(2, 2 * expectedArcs);
+        next = new int[size];
+        to = new int[size];
+        cap = new double[size];
+        base = new double[size];
+        level = new int[n];
+        iter = new int[n];
+        queue = new int[n];
+        path = new int[n];
+    }
+
+    /* Adds an arc u -> v and returns its index. */
+    public int addArc(int u, int v, double capacity) {
+        if (arcs + 2 > to.length) {
+            int size = 2 * to.length;
+            next = Arrays.copyOf(next, size);
+            to = Arrays.copyOf(to, size);
+            cap = Arrays.copyOf(cap, size);
+            base = Arrays.copyOf(base, size);
+        }
+        int e = arcs;
+        to[e] = v;
+        base[e] = capacity;
+        next[e] = head[u];
+        head[u] = e;
+        to[e + 1] = u;
+        base[e + 1] = 0;
+        next[e + 1] = head[v];
+        head[v] = e + 1;
+        arcs += 2;
+        return e;
+    }
+
+    /* Changes the baseline capacity of arc e; takes effect on reset(). */
+    public void setCapacity(int e, double capacity) {
+        base[e] = capacity;
+    }
+
+    /* Drops all flow, restoring the baseline capacities. */
+    public void reset() {
+        System.arraycopy(base, 0, cap, 0, arcs);
+    }
+
+    public double maxFlow(int s, int t) {
+        reset();
+        double flow = 0;
+        while (buildLevels(s, t)) {
+            for (int u = 0; u < n; u++) {
+                iter[u] = head[u];
+            }
+            flow += blockingFlow(s, t);
+        }
+        return flow;
+    }
+
+    // BFS from s over arcs with residual capacity.
+    private boolean buildLevels(int s, int t) {
+        Arrays.fill(level, -1);
+        int qHead = 0;
+        int qTail = 0;
+        queue[qTail++] = s;
+        level[s] = 0;
+        while (qHead < qTail) {
+            int u = queue[qHead++];
+            for (int e = head[u]; e != -1; e = next[e]) {
+                if (cap[e] > EPS && level[to[e]] < 0) {
+                    level[to[e]] = level[u] + 1;
+                    queue[qTail++] = to[e];
+                }
+            }
+        }
+        return level[t] >= 0;
+    }
+
+    // Iterative DFS for a blocking flow along the level graph.
+    private double blockingFlow(int s, int t) {
+        double total = 0;
+        int top = 0;
+        int u = s;
+        while (true) {
+            if (u == t) {
+                double push = Double.MAX_VALUE;
+                for (int i = 0; i < top; i++) {
+                    push = Math.min(push, cap[path[i]]);
+                }
+                for (int i = 0; i < top; i++) {
+                    cap[path[i]] -= push;
+                    cap[path[i] ^ 1] += push;
+                }
+                total += push;
+                top = 0;
+                u = s;
+                continue;
+            }
+            int e = iter[u];
+            while (e != -1 && !(cap[e] > EPS && level[to[e]] == level[u] + 1)) {
+                e = next[e];
+            }
+            iter[u] = e;
+            if (e == -1) {
+                if (u == s) {
+                    return total;
+                }
+                // dead end, so take u out of the level graph and back up
+                level[u] = -1;
+                top--;
+                u = to[path[top] ^ 1];
+            } else {
+                path[top++] = e;
+                u = to[e];
+            }
+        }
+    }
+
+    /* After maxFlow, marks the vertices on the source side of a min cut. */
+    public boolean[] minCut(int s) {
+        boolean[] seen = new boolean[n];
+        int qHead = 0;
+        int qTail = 0;
+        queue[qTail++] = s;
+        seen[s] = true;
+        while (qHead < qTail) {
+            int u = queue[qHead++];
+            for (int e = head[u]; e != -1; e = next[e]) {
+                if (cap[e] > EPS && !seen[to[e]]) {
+                    seen[to[e]] = true;
+                    queue[qTail++] = to[e];
+                }
+            }
+        }
+        return seen;
+    }
+}
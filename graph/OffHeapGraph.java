@@ -0,0 +1,524 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import util.IntHashSet;
+import util.IntSetMap;
+
+/**
+ * Read-only Graph whose adjacency lives outside the Java heap.
+ * The layout is that of CSRGraph: vertex ids sorted ascending, one
+ * offset per vertex and every adjacency list sorted in one targets
+ * array. All three sit in direct ByteBuffers or, if a store file is
+ * given, in a memory-mapped file that can be opened again later without
+ * reading the edge list. Targets are split into chunks of 2^CHUNK_BITS
+ * ints because one buffer holds at most 2 GB.
+ *
+ * Building and the traversals keep only per-vertex state on the heap
+ * (the id dictionary, BFS distances, Tarjan's stacks), never anything
+ * per edge, so GC work does not grow with the number of edges. Only
+ * exportGraph and exportSets copy the edges onto the heap.
+ */
+public class OffHeapGraph implements Graph {
+    static final int CHUNK_BITS = 28;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MAGIC = 0x47524148;
+    // magic, vertex count, edge count, padding
+    private static final int HEADER = 24;
+
+    private final int n;
+    private final long m;
+    private final IntBuffer ids;
+    private final LongBuffer offsets;
+    private final IntBuffer[] targets;
+    private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+
+    // Lays out a graph of n vertices and m edges, in the file if one is open.
+    private OffHeapGraph(int n, long m, FileChannel channel, FileChannel.MapMode mode)
+            throws IOException {
+        this.n = n;
+        this.m = m;
+        long position = HEADER;
+        ids = region(channel, mode, position, 4L * n).asIntBuffer();
+        position = align(position + 4L * n);
+        offsets = region(channel, mode, position, 8L * (n + 1)).asLongBuffer();
+        position = align(position + 8L * (n + 1));
+        targets = new IntBuffer[(int) ((m + CHUNK - 1) / CHUNK)];
+        for (int k = 0; k < targets.length; k++) {
+            long ints = Math.min(CHUNK, m - (long) k * CHUNK);
+            targets[k] = region(channel, mode, position, 4 * ints).asIntBuffer();
+            position += 4 * ints;
+        }
+    }
+
+    private ByteBuffer region(FileChannel channel, FileChannel.MapMode mode, long position, long bytes)
+            throws IOException {
+        ByteBuffer b = channel == null
+                ? ByteBuffer.allocateDirect((int) bytes)
+                : channel.map(mode, position, bytes);
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        buffers.add(b);
+        return b;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static long fileSize(int n, long m) {
+        return align(align(HEADER + 4L * n) + 8L * (n + 1)) + 4 * m;
+    }
+
+    /**
+     * Reads a file of "from to" lines, as GraphLoader does, into direct
+     * buffers, or into storeFile if it is not null. The file is read
+     * twice: once to number the vertices and count degrees, and once to
+     * place every edge straight into its slot. A malformed file fails in
+     * the first pass, before storeFile is touched.
+     */
+    public static OffHeapGraph load(String edgeFile, String storeFile) throws IOException {
+        final VertexIds dict = new VertexIds();
+        final int[][] degree = { new int[16] };
+        final long[] m = { 0 };
+        readEdges(edgeFile, (from, to) -> {
+            int u = dict.add(from);
+            dict.add(to);
+            if (dict.size() > degree[0].length) {
+                degree[0] = Arrays.copyOf(degree[0], 2 * dict.size());
+            }
+            degree[0][u]++;
+            m[0]++;
+        });
+
+        int n = dict.size();
+        int[] sorted = dict.ids();
+        Arrays.sort(sorted);
+        final int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[i] = Arrays.binarySearch(sorted, dict.id(i));
+        }
+
+        OffHeapGraph g;
+        if (storeFile == null) {
+            g = new OffHeapGraph(n, m[0], null, null);
+        } else {
+            try (RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+                file.setLength(fileSize(n, m[0]));
+                FileChannel channel = file.getChannel();
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(n).putLong(m[0]);
+                g = new OffHeapGraph(n, m[0], channel, FileChannel.MapMode.READ_WRITE);
+            }
+        }
+
+        final long[] cursor = new long[n];
+        long offset = 0;
+        for (int i = 0; i < n; i++) {
+            cursor[rank[i]] = degree[0][i];
+        }
+        for (int u = 0; u < n; u++) {
+            g.ids.put(u, sorted[u]);
+            g.offsets.put(u, offset);
+            long d = cursor[u];
+            cursor[u] = offset;
+            offset += d;
+        }
+        g.offsets.put(n, offset);
+
+        final OffHeapGraph target = g;
+        readEdges(edgeFile, (from, to) -> {
+            int u = rank[dict.indexOf(from)];
+            target.setTarget(cursor[u]++, rank[dict.indexOf(to)]);
+        });
+        g.sortAdjacency();
+        g.force();
+        return g;
+    }
+
+    /**
+     * Maps a store file written by load, without reading any edges.
+     */
+    public static OffHeapGraph open(String storeFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(storeFile, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph store file: " + storeFile);
+            }
+            int n = header.getInt();
+            long m = header.getLong();
+            return new OffHeapGraph(n, m, channel, FileChannel.MapMode.READ_ONLY);
+        }
+    }
+
+    private interface EdgeSink {
+        void edge(int from, int to);
+    }
+
+    /**
+     * Streams the integer pairs of a file without a Scanner per line.
+     * Values are separated by whitespace; anything else, a value that
+     * does not fit an int, or a pair cut short throws an IOException.
+     */
+    private static void readEdges(String file, EdgeSink sink) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            int[] pair = new int[2];
+            int count = 0;
+            int line = 1;
+            int c = in.read();
+            while (c != -1) {
+                if (Character.isWhitespace(c)) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    c = in.read();
+                    continue;
+                }
+                boolean negative = c == '-';
+                if (negative) {
+                    c = in.read();
+                }
+                if (c < '0' || c > '9') {
+                    throw malformed(file, line);
+                }
+                long value = 0;
+                while (c >= '0' && c <= '9') {
+                    value = 10 * value + (c - '0');
+                    if (value > Integer.MAX_VALUE + 1L) {
+                        throw malformed(file, line);
+                    }
+                    c = in.read();
+                }
+                if (c != -1 && !Character.isWhitespace(c)) {
+                    throw malformed(file, line);
+                }
+                value = negative ? -value : value;
+                if (value > Integer.MAX_VALUE) {
+                    throw malformed(file, line);
+                }
+                pair[count++] = (int) value;
+                if (count == 2) {
+                    sink.edge(pair[0], pair[1]);
+                    count = 0;
+                }
+            }
+            if (count != 0) {
+                throw new IOException("Edge without a target at the end of " + file);
+            }
+        }
+    }
+
+    private static IOException malformed(String file, int line) {
+        return new IOException("Malformed edge list " + file + " at line " + line);
+    }
+
+    private void setTarget(long j, int v) {
+        targets[(int) (j >>> CHUNK_BITS)].put((int) (j & (CHUNK - 1)), v);
+    }
+
+    private int target(long j) {
+        return targets[(int) (j >>> CHUNK_BITS)].get((int) (j & (CHUNK - 1)));
+    }
+
+    // One scratch array as large as the biggest degree does all the sorting.
+    private void sortAdjacency() {
+        int max = 0;
+        for (int u = 0; u < n; u++) {
+            max = Math.max(max, degree(u));
+        }
+        int[] scratch = new int[max];
+        for (int u = 0; u < n; u++) {
+            long start = offsets.get(u);
+            int d = degree(u);
+            for (int i = 0; i < d; i++) {
+                scratch[i] = target(start + i);
+            }
+            Arrays.sort(scratch, 0, d);
+            for (int i = 0; i < d; i++) {
+                setTarget(start + i, scratch[i]);
+            }
+        }
+    }
+
+    private void force() {
+        for (ByteBuffer b : buffers) {
+            if (b instanceof MappedByteBuffer && !b.isReadOnly()) {
+                ((MappedByteBuffer) b).force();
+            }
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public long edgeCount() {
+        return m;
+    }
+
+    /* Bytes held outside the heap, or mapped from the store file. */
+    public long offHeapBytes() {
+        return 4L * n + 8L * (n + 1) + 4 * m;
+    }
+
+    /* Original value of dense vertex u. */
+    public int id(int u) {
+        return ids.get(u);
+    }
+
+    /* Dense index of the vertex with the given value, or -1. */
+    public int indexOf(int id) {
+        int lo = 0;
+        int hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int value = ids.get(mid);
+            if (value < id) {
+                lo = mid + 1;
+            } else if (value > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int degree(int u) {
+        return (int) (offsets.get(u + 1) - offsets.get(u));
+    }
+
+    /* Copies the sorted neighbors of dense vertex u. */
+    public int[] neighbors(int u) {
+        long start = offsets.get(u);
+        int[] ret = new int[degree(u)];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = target(start + i);
+        }
+        return ret;
+    }
+
+    /**
+     * Hop distance from the vertex with the given value to every dense
+     * vertex, or -1 where it cannot be reached.
+     */
+    public int[] bfs(int sourceId) {
+        int source = indexOf(sourceId);
+        if (source < 0) {
+            throw new IllegalArgumentException("Vertex not found!");
+        }
+        int[] dist = new int[n];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int u = queue[head++];
+            long end = offsets.get(u + 1);
+            for (long j = offsets.get(u); j < end; j++) {
+                int v = target(j);
+                if (dist[v] == -1) {
+                    dist[v] = dist[u] + 1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Strongly connected component of every dense vertex, numbered from
+     * 0. Uses Tarjan's algorithm with explicit stacks, so no transpose is
+     * needed and deep graphs cannot overflow the call stack.
+     */
+    public int[] sccLabels() {
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] comp = new int[n];
+        long[] next = new long[n];
+        int[] call = new int[n];
+        int[] stack = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(comp, -1);
+        int time = 0;
+        int count = 0;
+        int top = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            call[depth++] = root;
+            index[root] = low[root] = time++;
+            next[root] = offsets.get(root);
+            stack[top++] = root;
+
+            while (depth > 0) {
+                int u = call[depth - 1];
+                if (next[u] < offsets.get(u + 1)) {
+                    int v = target(next[u]++);
+                    if (index[v] == -1) {
+                        index[v] = low[v] = time++;
+                        next[v] = offsets.get(v);
+                        stack[top++] = v;
+                        call[depth++] = v;
+                    } else if (comp[v] == -1) {
+                        // v is still on the stack
+                        low[u] = Math.min(low[u], index[v]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[u] == index[u]) {
+                    int w;
+                    do {
+                        w = stack[--top];
+                        comp[w] = count;
+                    } while (w != u);
+                    count++;
+                }
+                if (depth > 0) {
+                    int p = call[depth - 1];
+                    low[p] = Math.min(low[p], low[u]);
+                }
+            }
+        }
+        return comp;
+    }
+
+    /* Each SCC as a CapGraph of its vertices, like CapGraph.getSCCs. */
+    public List<Graph> getSCCs() {
+        int[] comp = sccLabels();
+        List<Graph> sccs = new ArrayList<Graph>();
+        for (int u = 0; u < n; u++) {
+            while (comp[u] >= sccs.size()) {
+                sccs.add(new CapGraph());
+            }
+            sccs.get(comp[u]).addVertex(id(u));
+        }
+        return sccs;
+    }
+
+    /**
+     * The friends of center and the edges among them, as a CapGraph on
+     * the heap, matching CapGraph.getEgonet.
+     */
+    public Graph getEgonet(int center) {
+        int c = indexOf(center);
+        if (c < 0) {
+            throw new IllegalArgumentException("Vertex not found!");
+        }
+        int[] members = neighbors(c);
+        CapGraph ret = new CapGraph();
+        for (int u : members) {
+            ret.addVertex(id(u));
+        }
+        for (int u : members) {
+            long end = offsets.get(u + 1);
+            for (long j = offsets.get(u); j < end; j++) {
+                int v = target(j);
+                if (Arrays.binarySearch(members, v) >= 0) {
+                    ret.addEdge(id(u), id(v));
+                }
+            }
+        }
+        return ret;
+    }
+
+    public void addVertex(int num) {
+        throw new UnsupportedOperationException("OffHeapGraph is read-only!");
+    }
+
+    public void addEdge(int from, int to) {
+        throw new UnsupportedOperationException("OffHeapGraph is read-only!");
+    }
+
+    public HashMap<Integer, HashSet<Integer>> exportGraph() {
+        HashMap<Integer, HashSet<Integer>> ret = new HashMap<Integer, HashSet<Integer>>();
+        for (int u = 0; u < n; u++) {
+            HashSet<Integer> val = new HashSet<Integer>();
+            for (int v : neighbors(u)) {
+                val.add(id(v));
+            }
+            ret.put(id(u), val);
+        }
+        return ret;
+    }
+
+    public IntSetMap exportSets() {
+        IntSetMap ret = new IntSetMap(n);
+        for (int u = 0; u < n; u++) {
+            IntHashSet val = new IntHashSet(degree(u));
+            for (int v : neighbors(u)) {
+                val.add(id(v));
+            }
+            ret.put(id(u), val);
+        }
+        return ret;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String filename = "twitter_higgs.txt";
+        String store = null;
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        if (args.length > 1) {
+            store = args[1];
+        }
+        Runtime rt = Runtime.getRuntime();
+        long heap = rt.totalMemory() - rt.freeMemory();
+        long start = System.nanoTime();
+        OffHeapGraph g = load("data/" + filename, store);
+        System.out.printf("%d vertices, %d edges, %.1f MB off heap, loaded in %.0f ms%n",
+                g.size(), g.edgeCount(), g.offHeapBytes() / 1e6, (System.nanoTime() - start) / 1e6);
+        System.out.printf("heap grew by %.1f MB%n", (rt.totalMemory() - rt.freeMemory() - heap) / 1e6);
+        if (store != null) {
+            start = System.nanoTime();
+            g = open(store);
+            System.out.printf("reopened %s in %.2f ms%n", store, (System.nanoTime() - start) / 1e6);
+        }
+
+        start = System.nanoTime();
+        int[] dist = g.bfs(g.id(0));
+        int reached = 0;
+        for (int d : dist) {
+            if (d >= 0) {
+                reached++;
+            }
+        }
+        System.out.printf("BFS from %d reaches %d vertices in %.1f ms%n",
+                g.id(0), reached, (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        int[] comp = g.sccLabels();
+        int[] sizes = new int[g.size()];
+        int count = 0;
+        int largest = 0;
+        for (int c : comp) {
+            count = Math.max(count, c + 1);
+            largest = Math.max(largest, ++sizes[c]);
+        }
+        System.out.printf("%d SCCs, largest %d, in %.1f ms%n",
+                count, largest, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,205 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import util.GraphLoader;
+
+/**
+ * Global PageRank on a directed CSRGraph.
+ * Each iteration pulls rank along in-edges: every vertex sums the
+ * contributions of its in-neighbors from the previous iteration's array
+ * and writes only its own entry of the next one, so vertex ranges can be
+ * split across a fork-join pool with no locking. Rank held by vertices
+ * without out-edges is spread evenly over all vertices. Iteration stops
+ * once the L1 change between two iterations drops below the tolerance.
+ */
+public class PageRank {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    // vertices per fork-join leaf task
+    public static final int GRAIN = 4096;
+
+    private final CSRGraph in;
+    private final int[] outDegree;
+    private double damping = DEFAULT_DAMPING;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private final List<Double> history = new ArrayList<Double>();
+    private long nanos;
+
+    public PageRank(CSRGraph g) {
+        this(g, g.transpose());
+    }
+
+    /* Uses an in-edge index that is already at hand. */
+    public PageRank(CSRGraph g, CSRGraph in) {
+        this.in = in;
+        outDegree = new int[g.size()];
+        for (int u = 0; u < g.size(); u++) {
+            outDegree[u] = g.degree(u);
+        }
+    }
+
+    public PageRank setDamping(double damping) {
+        this.damping = damping;
+        return this;
+    }
+
+    public PageRank setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public PageRank setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Returns the rank of every dense vertex; the ranks sum to 1.
+     */
+    public double[] run() {
+        int n = in.size();
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] contrib = new double[n];
+        history.clear();
+        if (n == 0) {
+            return rank;
+        }
+        Arrays.fill(rank, 1.0 / n);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (int it = 0; it < maxIterations; it++) {
+            double dangling = 0;
+            for (int u = 0; u < n; u++) {
+                if (outDegree[u] == 0) {
+                    dangling += rank[u];
+                    contrib[u] = 0;
+                } else {
+                    contrib[u] = rank[u] / outDegree[u];
+                }
+            }
+            double base = (1 - damping) / n + damping * dangling / n;
+            double diff = pool.invoke(new Pull(in, 0, n, base, damping, rank, next, contrib));
+            history.add(diff);
+
+            double[] tmp = rank;
+            rank = next;
+            next = tmp;
+            if (diff < tolerance) {
+                break;
+            }
+        }
+        nanos = System.nanoTime() - start;
+        return rank;
+    }
+
+    // Computes next[lo..hi) and returns its L1 distance from rank.
+    private static class Pull extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+        final CSRGraph in;
+        final int lo;
+        final int hi;
+        final double base;
+        final double damping;
+        final double[] rank;
+        final double[] next;
+        final double[] contrib;
+
+        Pull(CSRGraph in, int lo, int hi, double base, double damping,
+                double[] rank, double[] next, double[] contrib) {
+            this.in = in;
+            this.lo = lo;
+            this.hi = hi;
+            this.base = base;
+            this.damping = damping;
+            this.rank = rank;
+            this.next = next;
+            this.contrib = contrib;
+        }
+
+        @Override
+        protected Double compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                Pull left = new Pull(in, lo, mid, base, damping, rank, next, contrib);
+                left.fork();
+                double right = new Pull(in, mid, hi, base, damping, rank, next, contrib).compute();
+                return right + left.join();
+            }
+            int[] offsets = in.offsets;
+            int[] targets = in.targets;
+            double diff = 0;
+            for (int v = lo; v < hi; v++) {
+                double sum = 0;
+                for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                    sum += contrib[targets[j]];
+                }
+                next[v] = base + damping * sum;
+                diff += Math.abs(next[v] - rank[v]);
+            }
+            return diff;
+        }
+    }
+
+    /* L1 change of every iteration of the last run. */
+    public List<Double> getHistory() {
+        return history;
+    }
+
+    public int getIterations() {
+        return history.size();
+    }
+
+    public double iterationsPerSecond() {
+        return history.size() / (nanos / 1e9);
+    }
+
+    /* Dense indices of the k highest ranked vertices, best first. */
+    public static int[] top(final double[] rank, int k) {
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(k + 1,
+                (a, b) -> Double.compare(rank[a], rank[b]));
+        for (int u = 0; u < rank.length; u++) {
+            heap.add(u);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Integer> order = new ArrayList<Integer>(heap);
+        Collections.sort(order, (a, b) -> Double.compare(rank[b], rank[a]));
+        int[] ret = new int[order.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = order.get(i);
+        }
+        return ret;
+    }
+
+    public static void main(String[] args) {
+        String filename = "twitter_higgs.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g);
+
+        PageRank pr = new PageRank(csr);
+        double[] rank = pr.run();
+        System.out.printf("%d iterations, %.1f iterations/s%n",
+                pr.getIterations(), pr.iterationsPerSecond());
+        for (int i = 0; i < pr.getHistory().size(); i++) {
+            System.out.printf("  iteration %d: L1 change %.3e%n", i + 1, pr.getHistory().get(i));
+        }
+        for (int u : top(rank, 10)) {
+            System.out.printf("%d: %.5f%n", csr.id(u), rank[u]);
+        }
+    }
+}
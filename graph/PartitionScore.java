@@ -0,0 +1,73 @@
+package graph;
+
+import java.util.stream.IntStream;
+
+/**
+ * Quality scores of a partition of an undirected CSRGraph, given as a
+ * community number per dense vertex (0..k-1).
+ * modularity is the fraction of edges inside communities minus the
+ * fraction expected at random with the same degrees; coverage is just
+ * the fraction of edges inside communities; the conductance of a
+ * community is the share of its edge endpoints that leave it, relative
+ * to the smaller side of the cut. Everything comes out of one parallel
+ * pass over the adjacency, without building any subgraphs.
+ */
+public class PartitionScore {
+    public final int communities;
+    public final double modularity;
+    public final double coverage;
+    public final double[] conductance;
+
+    private PartitionScore(int communities, double modularity, double coverage,
+            double[] conductance) {
+        this.communities = communities;
+        this.modularity = modularity;
+        this.coverage = coverage;
+        this.conductance = conductance;
+    }
+
+    public static PartitionScore score(final CSRGraph g, final int[] community) {
+        int k = 0;
+        for (int c : community) {
+            k = Math.max(k, c + 1);
+        }
+        final int size = k;
+        final int[] offsets = g.offsets;
+        final int[] targets = g.targets;
+
+        // per community: [c] arcs inside, [size + c] arcs leaving
+        long[] arcs = IntStream.range(0, g.size()).parallel().collect(
+                () -> new long[2 * size],
+                (acc, u) -> {
+                    int c = community[u];
+                    for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                        if (community[targets[j]] == c) {
+                            acc[c]++;
+                        } else {
+                            acc[size + c]++;
+                        }
+                    }
+                },
+                (a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                });
+
+        // every undirected edge is stored as two arcs
+        double twoM = g.edgeCount();
+        double q = 0;
+        double inside = 0;
+        double[] conductance = new double[size];
+        for (int c = 0; c < size; c++) {
+            double volume = arcs[c] + arcs[size + c];
+            inside += arcs[c];
+            if (twoM > 0) {
+                q += arcs[c] / twoM - (volume / twoM) * (volume / twoM);
+            }
+            double smaller = Math.min(volume, twoM - volume);
+            conductance[c] = smaller == 0 ? 0 : arcs[size + c] / smaller;
+        }
+        return new PartitionScore(size, q, twoM == 0 ? 0 : inside / twoM, conductance);
+    }
+}
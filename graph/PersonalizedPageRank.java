@@ -0,0 +1,212 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import util.GraphLoader;
+
+/**
+ * Monte Carlo personalized PageRank.
+ * Runs many short random walks with restart from a source vertex and
+ * counts how often each vertex is visited. The visit frequencies
+ * approximate the personalized PageRank vector of the source, which
+ * ranks candidates that are more than two hops away as well as the
+ * common-neighbor scoring in CapGraph.findPossibleFriends.
+ * Walks are split across threads, each with its own SplittableRandom.
+ */
+public class PersonalizedPageRank {
+    public static final int DEFAULT_WALKS = 100000;
+    public static final double DEFAULT_RESTART = 0.15;
+    // hard cap so a walk on a huge component can't run forever
+    public static final int MAX_WALK_LENGTH = 100;
+
+    private final CSRGraph csr;
+    private int walks = DEFAULT_WALKS;
+    private double restart = DEFAULT_RESTART;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 42;
+
+    public PersonalizedPageRank(CapGraph g) {
+        this(CSRGraph.fromCapGraph(g));
+    }
+
+    public PersonalizedPageRank(CSRGraph csr) {
+        this.csr = csr;
+    }
+
+    /* More walks give a more accurate ranking at the cost of latency. */
+    public PersonalizedPageRank setWalks(int walks) {
+        this.walks = walks;
+        return this;
+    }
+
+    public PersonalizedPageRank setRestart(double restart) {
+        this.restart = restart;
+        return this;
+    }
+
+    public PersonalizedPageRank setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    public PersonalizedPageRank setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /** Visit counts of one run, indexed by dense vertex of the CSRGraph. */
+    public static class Result {
+        public final int source;
+        public final long[] visits;
+        public final int walks;
+        public final long steps;
+        public final long nanos;
+
+        Result(int source, long[] visits, int walks, long steps, long nanos) {
+            this.source = source;
+            this.visits = visits;
+            this.walks = walks;
+            this.steps = steps;
+            this.nanos = nanos;
+        }
+
+        public double walksPerSecond() {
+            return walks / (nanos / 1e9);
+        }
+
+        public double stepsPerSecond() {
+            return steps / (nanos / 1e9);
+        }
+    }
+
+    /**
+     * Runs the walks from the vertex with the given value.
+     */
+    public Result run(int sourceId) {
+        final int source = csr.indexOf(sourceId);
+        if (source < 0) {
+            throw new IllegalArgumentException("Vertex not found!");
+        }
+        final int n = csr.size();
+        final long[][] counts = new long[threads][];
+        final long[] steps = new long[threads];
+        Thread[] workers = new Thread[threads];
+        SplittableRandom root = new SplittableRandom(seed);
+
+        long startTime = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            final int share = walks / threads + (t < walks % threads ? 1 : 0);
+            final SplittableRandom rng = root.split();
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    counts[id] = new long[n];
+                    steps[id] = walk(source, share, rng, counts[id]);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        long[] visits = counts[0];
+        long totalSteps = steps[0];
+        for (int t = 1; t < threads; t++) {
+            for (int u = 0; u < n; u++) {
+                visits[u] += counts[t][u];
+            }
+            totalSteps += steps[t];
+        }
+        return new Result(source, visits, walks, totalSteps,
+                System.nanoTime() - startTime);
+    }
+
+    // Walks from source until restart, a dead end or the length cap.
+    private long walk(int source, int count, SplittableRandom rng, long[] visits) {
+        int[] offsets = csr.offsets;
+        int[] targets = csr.targets;
+        long steps = 0;
+        for (int w = 0; w < count; w++) {
+            int curr = source;
+            for (int len = 0; len < MAX_WALK_LENGTH; len++) {
+                int deg = offsets[curr + 1] - offsets[curr];
+                if (deg == 0 || rng.nextDouble() < restart) {
+                    break;
+                }
+                curr = targets[offsets[curr] + rng.nextInt(deg)];
+                visits[curr]++;
+                steps++;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Returns the k most visited vertices that are neither the source
+     * nor already its neighbors, most visited first.
+     */
+    public List<Integer> topK(Result result, int k) {
+        boolean[] skip = new boolean[csr.size()];
+        skip[result.source] = true;
+        for (int j = csr.offsets[result.source]; j < csr.offsets[result.source + 1]; j++) {
+            skip[csr.targets[j]] = true;
+        }
+
+        final long[] visits = result.visits;
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(k + 1,
+                (a, b) -> visits[a] != visits[b] ? Long.compare(visits[a], visits[b]) : b - a);
+        for (int u = 0; u < visits.length; u++) {
+            if (skip[u] || visits[u] == 0) {
+                continue;
+            }
+            heap.add(u);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        List<Integer> ret = new ArrayList<Integer>();
+        while (!heap.isEmpty()) {
+            ret.add(csr.id(heap.poll()));
+        }
+        Collections.reverse(ret);
+        return ret;
+    }
+
+    public List<Integer> recommend(int sourceId, int k) {
+        return topK(run(sourceId), k);
+    }
+
+    public static void main(String[] args) {
+        String filename = "facebook_1000.txt";
+        int source = 0;
+        int walks = DEFAULT_WALKS;
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        if (args.length > 1) {
+            source = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            walks = Integer.parseInt(args[2]);
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+
+        PersonalizedPageRank ppr = new PersonalizedPageRank(g).setWalks(walks);
+        Result result = ppr.run(source);
+        System.out.println("Recommendations: " + ppr.topK(result, 10));
+        System.out.printf("%d walks, %d steps in %.1f ms (%.0f walks/s, %.0f steps/s)%n",
+                result.walks, result.steps, result.nanos / 1e6,
+                result.walksPerSecond(), result.stepsPerSecond());
+    }
+}
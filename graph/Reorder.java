@@ -0,0 +1,287 @@
+package graph;
+
+import java.util.Arrays;
+import util.GraphLoader;
+
+/**
+ * Relabels the dense vertices of a CSRGraph so that vertices used
+ * together sit close together in memory.
+ * Every ordering is a permutation order, where order[i] is the old
+ * index that becomes index i; apply rebuilds the adjacency in the new
+ * labels, and the ids of the result still map each index back to its
+ * original value. Orderings look at edges in both directions:
+ *
+ *   DEGREE     hubs first, so the most visited entries share cache lines
+ *   RCM        reverse Cuthill-McKee, which keeps the band of the
+ *              adjacency matrix narrow
+ *   BFS        breadth-first discovery order, component by component
+ *   COMMUNITY  Louvain communities laid out one after another, coarsest
+ *              level first, in the spirit of Rabbit order
+ */
+public class Reorder {
+    public enum Order { DEGREE, RCM, BFS, COMMUNITY }
+
+    public static int[] order(CSRGraph g, Order how) {
+        switch (how) {
+            case DEGREE:
+                return degree(g);
+            case RCM:
+                return rcm(g);
+            case BFS:
+                return bfs(g);
+            default:
+                return community(g);
+        }
+    }
+
+    /* Returns g with vertex order[i] relabeled as i. */
+    public static CSRGraph apply(CSRGraph g, int[] order) {
+        int n = g.size();
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+        int[] ids = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[g.edgeCount()];
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            ids[i] = g.ids[u];
+            int write = offsets[i];
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                targets[write++] = position[g.targets[j]];
+            }
+            Arrays.sort(targets, offsets[i], write);
+            offsets[i + 1] = write;
+        }
+        return new CSRGraph(ids, offsets, targets);
+    }
+
+    // The same vertices with every arc in both directions.
+    private static CSRGraph symmetric(CSRGraph g) {
+        int m = g.edgeCount();
+        int[] from = new int[m];
+        for (int u = 0; u < g.size(); u++) {
+            Arrays.fill(from, g.offsets[u], g.offsets[u + 1], u);
+        }
+        return CSRGraph.build(g.ids, from, g.targets, m, true);
+    }
+
+    /* Descending degree, ties broken by the old index. */
+    public static int[] degree(CSRGraph g) {
+        CSRGraph s = symmetric(g);
+        int n = s.size();
+        long[] keys = new long[n];
+        for (int u = 0; u < n; u++) {
+            keys[u] = ((long) (Integer.MAX_VALUE - s.degree(u)) << 32) | u;
+        }
+        Arrays.sort(keys);
+        return lowHalves(keys);
+    }
+
+    /**
+     * Reverse Cuthill-McKee. Each component is searched breadth first
+     * from its lowest degree vertex, visiting the neighbors of a vertex
+     * in ascending degree, and the final order is reversed.
+     */
+    public static int[] rcm(CSRGraph g) {
+        CSRGraph s = symmetric(g);
+        int n = s.size();
+        long[] starts = new long[n];
+        for (int u = 0; u < n; u++) {
+            starts[u] = ((long) s.degree(u) << 32) | u;
+        }
+        Arrays.sort(starts);
+
+        int[] order = new int[n];
+        boolean[] seen = new boolean[n];
+        long[] scratch = new long[16];
+        int size = 0;
+        for (long start : starts) {
+            int root = (int) start;
+            if (seen[root]) {
+                continue;
+            }
+            seen[root] = true;
+            order[size++] = root;
+            for (int head = size - 1; head < size; head++) {
+                int u = order[head];
+                int count = 0;
+                for (int j = s.offsets[u]; j < s.offsets[u + 1]; j++) {
+                    int v = s.targets[j];
+                    if (!seen[v]) {
+                        seen[v] = true;
+                        if (count == scratch.length) {
+                            scratch = Arrays.copyOf(scratch, 2 * count);
+                        }
+                        scratch[count++] = ((long) s.degree(v) << 32) | v;
+                    }
+                }
+                Arrays.sort(scratch, 0, count);
+                for (int i = 0; i < count; i++) {
+                    order[size++] = (int) scratch[i];
+                }
+            }
+        }
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    /* Breadth-first order, starting each component at its largest hub. */
+    public static int[] bfs(CSRGraph g) {
+        CSRGraph s = symmetric(g);
+        int n = s.size();
+        int[] order = new int[n];
+        boolean[] seen = new boolean[n];
+        int size = 0;
+        for (int root : degree(g)) {
+            if (seen[root]) {
+                continue;
+            }
+            seen[root] = true;
+            order[size++] = root;
+            for (int head = size - 1; head < size; head++) {
+                int u = order[head];
+                for (int j = s.offsets[u]; j < s.offsets[u + 1]; j++) {
+                    int v = s.targets[j];
+                    if (!seen[v]) {
+                        seen[v] = true;
+                        order[size++] = v;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Groups vertices by Louvain community at every level, coarsest
+     * first, and keeps the BFS order inside the finest groups.
+     */
+    public static int[] community(CSRGraph g) {
+        CSRGraph s = symmetric(g);
+        int n = s.size();
+        Louvain louvain = new Louvain(s);
+        louvain.run();
+        // start from the BFS order and stably re-sort by each level in
+        // turn, finest first, so the coarsest level ends up deciding;
+        // the position in the previous order breaks ties
+        int[] order = bfs(g);
+        long[] keys = new long[n];
+        for (int i = 0; i < louvain.levelCount(); i++) {
+            int[] level = louvain.membership(i);
+            for (int k = 0; k < n; k++) {
+                keys[k] = ((long) level[order[k]] << 32) | k;
+            }
+            Arrays.sort(keys);
+            int[] next = new int[n];
+            for (int k = 0; k < n; k++) {
+                next[k] = order[(int) keys[k]];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    private static int[] lowHalves(long[] keys) {
+        int[] ret = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ret[i] = (int) keys[i];
+        }
+        return ret;
+    }
+
+    /* Mean of log2(1 + |u - v|) over all arcs; lower means more local. */
+    public static double averageLogGap(CSRGraph g) {
+        double sum = 0;
+        for (int u = 0; u < g.size(); u++) {
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                sum += Math.log(1 + Math.abs(u - g.targets[j]));
+            }
+        }
+        return sum / Math.log(2) / Math.max(1, g.edgeCount());
+    }
+
+    // Breadth-first search over the whole graph; returns the vertices reached.
+    private static int bfsAll(CSRGraph g) {
+        int n = g.size();
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int root = 0; root < n; root++) {
+            if (seen[root]) {
+                continue;
+            }
+            seen[root] = true;
+            queue[tail++] = root;
+            for (int head = tail - 1; head < tail; head++) {
+                int u = queue[head];
+                for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                    if (!seen[g.targets[j]]) {
+                        seen[g.targets[j]] = true;
+                        queue[tail++] = g.targets[j];
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Times a full BFS, Tarjan's SCCs and 20 PageRank iterations on the
+     * original order and on every reordering of each data file.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            args = new String[] { "facebook_2000.txt", "twitter_higgs.txt" };
+        }
+        int rounds = 20;
+        for (String filename : args) {
+            CapGraph cap = new CapGraph();
+            GraphLoader.loadGraph(cap, "data/" + filename);
+            CSRGraph original = CSRGraph.fromCapGraph(cap);
+            System.out.printf("%s: %d vertices, %d edges%n", filename, original.size(), original.edgeCount());
+            System.out.printf("  %-10s %8s %8s %8s %8s %8s%n",
+                    "order", "log gap", "build", "BFS", "SCC", "PageRank");
+
+            report("ID", original, 0, rounds);
+            for (Order how : Order.values()) {
+                long start = System.nanoTime();
+                CSRGraph g = apply(original, order(original, how));
+                report(how.name(), g, System.nanoTime() - start, rounds);
+            }
+        }
+    }
+
+    private static void report(String name, CSRGraph g, long buildNanos, int rounds) {
+        CSRGraph in = g.transpose();
+        long check = 0;
+        // warm up, then time each kernel separately
+        for (int i = 0; i < rounds; i++) {
+            check += bfsAll(g) + g.sccLabels().length;
+            new PageRank(g, in).setTolerance(0).setMaxIterations(20).run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            check += bfsAll(g);
+        }
+        double bfs = (System.nanoTime() - start) / 1e6 / rounds;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            check += g.sccLabels()[0];
+        }
+        double scc = (System.nanoTime() - start) / 1e6 / rounds;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            new PageRank(g, in).setTolerance(0).setMaxIterations(20).run();
+        }
+        double pr = (System.nanoTime() - start) / 1e6 / rounds;
+        System.out.printf("  %-10s %8.2f %6.1fms %6.2fms %6.2fms %6.2fms%s%n",
+                name, averageLogGap(g), buildNanos / 1e6, bfs, scc, pr,
+                check < 0 ? "!" : "");
+    }
+}
@@ -0,0 +1,74 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import util.GraphLoader;
+
+/**
+ * Sparse matrix-vector multiply with the adjacency matrix of a CSRGraph.
+ * Row u of the product only reads the CSR slice of u and writes y[u], so
+ * rows are split into blocks and handed to the common fork-join pool
+ * with no synchronization beyond the final join.
+ */
+public class SpMV {
+    // rows per task; small enough to balance skewed degrees
+    public static final int BLOCK = 1024;
+
+    /* y = A x, where A[u][v] is 1 for every arc u -> v. */
+    public static void multiply(CSRGraph g, double[] x, double[] y) {
+        multiply(g, null, x, y);
+    }
+
+    /* y = A x, where A[u][v] is weights[j] for the arc stored at j. */
+    public static void multiply(final CSRGraph g, final double[] weights,
+            final double[] x, final double[] y) {
+        final int n = g.size();
+        final int[] offsets = g.offsets;
+        final int[] targets = g.targets;
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(n, (b + 1) * BLOCK);
+            for (int u = b * BLOCK; u < end; u++) {
+                double sum = 0;
+                if (weights == null) {
+                    for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                        sum += x[targets[j]];
+                    }
+                } else {
+                    for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                        sum += weights[j] * x[targets[j]];
+                    }
+                }
+                y[u] = sum;
+            }
+        });
+    }
+
+    /* Prints multiplies per second and arcs per second for a file. */
+    public static void main(String[] args) {
+        String filename = "twitter_higgs.txt";
+        int rounds = 50;
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        double[] x = new double[csr.size()];
+        double[] y = new double[csr.size()];
+        Arrays.fill(x, 1);
+        // warm up the JIT before timing
+        for (int r = 0; r < 5; r++) {
+            multiply(csr, x, y);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            multiply(csr, x, y);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d x %d, %d arcs: %.2f ms per multiply, %.1f M arcs/s%n",
+                csr.size(), csr.size(), csr.edgeCount(), seconds * 1e3 / rounds,
+                csr.edgeCount() * (double) rounds / seconds / 1e6);
+    }
+}
@@ -0,0 +1,196 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Two-way partitioning by spectral bisection.
+ * The Laplacian is applied as D - A straight from the CSR adjacency, in
+ * its normalized form N = I - D^-1/2 A D^-1/2. The Fiedler vector (the
+ * eigenvector of the second smallest eigenvalue of N) is found by power
+ * iteration on 2I - N, whose top eigenvector D^1/2 1 is known and is
+ * projected out after every step. Vertices are then sorted by their
+ * Fiedler value, and the prefix with the lowest conductance becomes
+ * one side of the cut. Each step is one parallel SpMV.
+ */
+public class SpectralBisection {
+    public static final int DEFAULT_ITERATIONS = 1000;
+    public static final double TOLERANCE = 1e-9;
+
+    private final CSRGraph g;
+    private int maxIterations = DEFAULT_ITERATIONS;
+    private long seed = 42;
+    private int iterations;
+    private double[] fiedler;
+    private double conductance;
+
+    public SpectralBisection(CSRGraph g) {
+        this.g = g;
+    }
+
+    public SpectralBisection setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    public SpectralBisection setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Returns 0 or 1 for every dense vertex of the graph.
+     */
+    public int[] run() {
+        int n = g.size();
+        double[] scale = new double[n];
+        double[] top = new double[n];
+        for (int u = 0; u < n; u++) {
+            int d = g.degree(u);
+            scale[u] = d == 0 ? 0 : 1 / Math.sqrt(d);
+            top[u] = Math.sqrt(d);
+        }
+        normalize(top);
+
+        Random rng = new Random(seed);
+        double[] x = new double[n];
+        for (int u = 0; u < n; u++) {
+            x[u] = rng.nextDouble() - 0.5;
+        }
+        project(x, top);
+        normalize(x);
+
+        double[] z = new double[n];
+        double[] w = new double[n];
+        double[] y = new double[n];
+        for (iterations = 0; iterations < maxIterations; iterations++) {
+            // y = (2I - N) x = x + D^-1/2 A D^-1/2 x
+            for (int u = 0; u < n; u++) {
+                z[u] = scale[u] * x[u];
+            }
+            SpMV.multiply(g, z, w);
+            for (int u = 0; u < n; u++) {
+                y[u] = x[u] + scale[u] * w[u];
+            }
+            project(y, top);
+            normalize(y);
+
+            double diff = 0;
+            for (int u = 0; u < n; u++) {
+                diff += (y[u] - x[u]) * (y[u] - x[u]);
+            }
+            double[] tmp = x;
+            x = y;
+            y = tmp;
+            if (diff < TOLERANCE * TOLERANCE) {
+                break;
+            }
+        }
+
+        fiedler = new double[n];
+        for (int u = 0; u < n; u++) {
+            fiedler[u] = scale[u] * x[u];
+        }
+        return sweep(fiedler);
+    }
+
+    // Cuts the vertex order of values at the prefix of lowest conductance.
+    private int[] sweep(double[] values) {
+        int n = g.size();
+        int[] order = sortByValue(values, n);
+
+        boolean[] in = new boolean[n];
+        double total = g.edgeCount();
+        double volume = 0;
+        double cut = 0;
+        conductance = Double.MAX_VALUE;
+        int bestSize = 0;
+        for (int i = 0; i < n - 1; i++) {
+            int u = order[i];
+            in[u] = true;
+            int inside = 0;
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                if (in[g.targets[j]]) {
+                    inside++;
+                }
+            }
+            volume += g.degree(u);
+            cut += g.degree(u) - 2 * inside;
+            double smaller = Math.min(volume, total - volume);
+            if (smaller > 0 && cut / smaller < conductance) {
+                conductance = cut / smaller;
+                bestSize = i + 1;
+            }
+        }
+
+        int[] side = new int[n];
+        for (int i = bestSize; i < n; i++) {
+            side[order[i]] = 1;
+        }
+        return side;
+    }
+
+    /**
+     * Indices 0 .. size-1 in ascending order of values, ties by index, as
+     * Double.compare would order them. A double does not fit beside its
+     * index in a long, so each value is first replaced by its rank among
+     * the sorted values; both sorts are then over primitive longs.
+     */
+    static int[] sortByValue(double[] values, int size) {
+        long[] bits = new long[size];
+        for (int u = 0; u < size; u++) {
+            long b = Double.doubleToLongBits(values[u]);
+            // flip the magnitude of negatives so the longs order like doubles
+            bits[u] = b ^ ((b >> 63) & Long.MAX_VALUE);
+        }
+        long[] sorted = bits.clone();
+        Arrays.sort(sorted);
+        long[] keys = new long[size];
+        for (int u = 0; u < size; u++) {
+            keys[u] = ((long) Arrays.binarySearch(sorted, bits[u]) << 32) | u;
+        }
+        Arrays.sort(keys);
+        int[] ret = new int[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = (int) keys[i];
+        }
+        return ret;
+    }
+
+    private static void project(double[] x, double[] unit) {
+        double dot = 0;
+        for (int u = 0; u < x.length; u++) {
+            dot += x[u] * unit[u];
+        }
+        for (int u = 0; u < x.length; u++) {
+            x[u] -= dot * unit[u];
+        }
+    }
+
+    private static void normalize(double[] x) {
+        double norm = 0;
+        for (double value : x) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return;
+        }
+        for (int u = 0; u < x.length; u++) {
+            x[u] /= norm;
+        }
+    }
+
+    public double[] fiedlerVector() {
+        return fiedler;
+    }
+
+    /* Conductance of the cut chosen by the last run. */
+    public double conductance() {
+        return conductance;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
@@ -0,0 +1,178 @@
+package graph;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import util.GraphLoader;
+
+/**
+ * Triangle counting and local clustering coefficients on an undirected
+ * CSRGraph.
+ * Each edge is oriented from the endpoint of lower degree to the one of
+ * higher degree (ties broken by index), which keeps every out-list short
+ * even around hubs and makes each triangle show up exactly once. The
+ * triangles through an oriented edge u -> v are the common out-neighbors
+ * of u and v, found by intersecting the two sorted lists with one of
+ * the Intersect kernels or by probing a marker table filled with u's
+ * out-list. Vertices are spread over the common fork-join pool.
+ */
+public class Triangles {
+    public enum Mode { MERGE, HASH }
+
+    private final CSRGraph g;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private Intersect.Kernel kernel = Intersect.ADAPTIVE;
+    private long total;
+    private AtomicLongArray perVertex;
+
+    public Triangles(CSRGraph g) {
+        this.g = g;
+        int n = g.size();
+        outOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            int count = 0;
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                if (before(u, g.targets[j])) {
+                    count++;
+                }
+            }
+            outOffsets[u + 1] = outOffsets[u] + count;
+        }
+        // filtering a sorted list keeps it sorted
+        outTargets = new int[outOffsets[n]];
+        for (int u = 0; u < n; u++) {
+            int k = outOffsets[u];
+            for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+                if (before(u, g.targets[j])) {
+                    outTargets[k++] = g.targets[j];
+                }
+            }
+        }
+    }
+
+    /* Sets the intersection kernel used by MERGE mode. */
+    public Triangles setKernel(Intersect.Kernel kernel) {
+        this.kernel = kernel;
+        return this;
+    }
+
+    // Orientation order: by degree, then by index.
+    private boolean before(int u, int v) {
+        int du = g.degree(u);
+        int dv = g.degree(v);
+        return du < dv || (du == dv && u < v);
+    }
+
+    /* Counts all triangles; returns the total. */
+    public long count(final Mode mode) {
+        final int n = g.size();
+        final AtomicLongArray counts = new AtomicLongArray(n);
+        // MERGE needs room for the longest out-list, HASH a marker per vertex
+        int maxOut = 0;
+        for (int u = 0; u < n; u++) {
+            maxOut = Math.max(maxOut, outOffsets[u + 1] - outOffsets[u]);
+        }
+        final int size = mode == Mode.MERGE ? maxOut : n;
+        final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[size]);
+        total = IntStream.range(0, n).parallel().mapToLong(u -> {
+            int[] buffer = scratch.get();
+            return mode == Mode.MERGE ? mergeFrom(u, counts, buffer) : hashFrom(u, counts, buffer);
+        }).sum();
+        perVertex = counts;
+        return total;
+    }
+
+    private long mergeFrom(int u, AtomicLongArray counts, int[] common) {
+        long found = 0;
+        for (int j = outOffsets[u]; j < outOffsets[u + 1]; j++) {
+            int v = outTargets[j];
+            int hits = kernel.intersect(outTargets, outOffsets[u], outOffsets[u + 1],
+                    outTargets, outOffsets[v], outOffsets[v + 1], common);
+            for (int k = 0; k < hits; k++) {
+                record(counts, u, v, common[k]);
+            }
+            found += hits;
+        }
+        return found;
+    }
+
+    // marks[w] == u + 1 means w is an out-neighbor of u
+    private long hashFrom(int u, AtomicLongArray counts, int[] marks) {
+        long found = 0;
+        for (int j = outOffsets[u]; j < outOffsets[u + 1]; j++) {
+            marks[outTargets[j]] = u + 1;
+        }
+        for (int j = outOffsets[u]; j < outOffsets[u + 1]; j++) {
+            int v = outTargets[j];
+            for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+                if (marks[outTargets[k]] == u + 1) {
+                    record(counts, u, v, outTargets[k]);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static void record(AtomicLongArray counts, int u, int v, int w) {
+        counts.incrementAndGet(u);
+        counts.incrementAndGet(v);
+        counts.incrementAndGet(w);
+    }
+
+    private void ensureCounted() {
+        if (perVertex == null) {
+            count(Mode.MERGE);
+        }
+    }
+
+    public long total() {
+        ensureCounted();
+        return total;
+    }
+
+    /* Number of triangles through dense vertex u. */
+    public long triangles(int u) {
+        ensureCounted();
+        return perVertex.get(u);
+    }
+
+    /**
+     * Fraction of pairs of u's neighbors that are themselves connected;
+     * 0 for vertices with fewer than two neighbors.
+     */
+    public double clustering(int u) {
+        long d = g.degree(u);
+        if (d < 2) {
+            return 0;
+        }
+        return 2.0 * triangles(u) / (d * (d - 1));
+    }
+
+    public double averageClustering() {
+        double sum = 0;
+        for (int u = 0; u < g.size(); u++) {
+            sum += clustering(u);
+        }
+        return g.size() == 0 ? 0 : sum / g.size();
+    }
+
+    public static void main(String[] args) {
+        String filename = "twitter_higgs.txt";
+        if (args.length > 0) {
+            filename = args[0];
+        }
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/" + filename);
+        CSRGraph csr = CSRGraph.fromCapGraph(g, true);
+
+        Triangles t = new Triangles(csr);
+        for (Mode mode : Mode.values()) {
+            long start = System.nanoTime();
+            long count = t.count(mode);
+            System.out.printf("%s: %d triangles in %.1f ms%n",
+                    mode, count, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("average clustering coefficient: %.4f%n", t.averageClustering());
+    }
+}
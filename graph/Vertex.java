@@ -1,12 +1,17 @@
 package graph;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.ArrayList;
 
 public class Vertex implements Comparable<Vertex> {
-    List<Edge> edges;
+    EdgeList edges;
+    // edges pointing at this vertex; null unless the graph indexes them
+    EdgeList inEdges;
     int val;
+    // dense index in the owning CapGraph, see VertexIds
+    int index = -1;
     public int layer = 0;
     public List<Vertex> parents = new ArrayList<Vertex>();
     public boolean visited = false;
@@ -17,12 +22,12 @@ public class Vertex implements Comparable<Vertex> {
 
     public Vertex(int val) {
         this.val = val;
-        edges = new ArrayList<Edge>();
+        edges = new EdgeList(this);
     }
 
     public Vertex(Vertex v, List<Vertex> allowed) {
         this.val = v.getVal();
-        edges = new ArrayList<Edge>();
+        edges = new EdgeList(this);
         for (Edge e : v.getEdges()) {
             if (allowed.contains(e.getOtherVertex(v))) {
                 edges.add(e);
@@ -49,21 +54,35 @@ public class Vertex implements Comparable<Vertex> {
     }
 
     public void removeEdge(Vertex v) {
-        for (Edge e : edges) {
-            if (e.getOtherVertex(this).equals(v)) {
-                edges.remove(e);
-                return;
-            }
+        Edge e = edges.removeNeighbor(v.getVal());
+        if (e == null) {
+            return;
+        }
+        Vertex other = e.getOtherVertex(this);
+        if (other.inEdges != null) {
+            other.removeInEdge(e);
         }
     }
 
+    // Removes this exact edge object, not just an equal one.
+    private void removeInEdge(Edge e) {
+        inEdges.removeEdge(e);
+    }
+
     public void addEdge(Vertex v) {
         Edge e = new Edge(this, v);
         boolean x = edges.add(e);
+        if (v.inEdges != null) {
+            v.inEdges.add(e);
+        }
     }
 
     public void addEdge(Edge e) {
         edges.add(e);
+        Vertex other = e.getOtherVertex(this);
+        if (other.inEdges != null) {
+            other.inEdges.add(e);
+        }
     }
 
     public int degree() {
@@ -71,15 +90,76 @@ public class Vertex implements Comparable<Vertex> {
     }
 
     public int getEdgeCount(List<Vertex> allowed) {
-        int ret = 0;
-        for (Edge e : edges) {
-            if (allowed.contains(e.getOtherVertex(this))) {
-                ret += 1;
+        return getEdgeCount(sortedValues(allowed));
+    }
+
+    /**
+     * Number of edges to neighbors whose values are in allowed, which
+     * must be sorted without repeats, as from sortedValues. Parallel
+     * edges each count, as in getEdgeCount(List). Callers that test
+     * many vertices against one set convert it only once.
+     */
+    public int getEdgeCount(int[] allowed) {
+        int[] mine = neighborValues();
+        if (edges.isSorted()) {
+            return Intersect.ADAPTIVE.intersect(mine, 0, mine.length, allowed, 0, allowed.length, null);
+        }
+        // the kernels take sets, so squeeze out parallel edges first and
+        // add them back for each common neighbor
+        int[] repeats = new int[mine.length];
+        int size = 0;
+        for (int i = 0; i < mine.length; i++) {
+            if (size > 0 && mine[i] == mine[size - 1]) {
+                repeats[size - 1]++;
+            } else {
+                mine[size++] = mine[i];
+            }
+        }
+        int[] common = new int[Math.min(size, allowed.length)];
+        int hits = Intersect.ADAPTIVE.intersect(mine, 0, size, allowed, 0, allowed.length, common);
+        int ret = hits;
+        for (int i = 0, j = 0; i < hits; i++, j++) {
+            while (mine[j] != common[i]) {
+                j++;
             }
+            ret += repeats[j];
         }
         return ret;
     }
 
+    // Neighbor values in increasing order, one per edge.
+    int[] neighborValues() {
+        int[] ret = new int[edges.size()];
+        int i = 0;
+        for (Edge e : edges) {
+            ret[i++] = e.getOtherVertex(this).getVal();
+        }
+        if (!edges.isSorted()) {
+            Arrays.sort(ret);
+        }
+        return ret;
+    }
+
+    /* Values of the given vertices, sorted and without repeats. */
+    public static int[] sortedValues(List<Vertex> vertices) {
+        int[] ret = new int[vertices.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = vertices.get(i).getVal();
+        }
+        return sortDistinct(ret);
+    }
+
+    private static int[] sortDistinct(int[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (size == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
     public List<Vertex> getNeighbors() {
         List<Vertex> ret = new ArrayList<Vertex>();
         for (Edge e : edges) {
@@ -98,10 +178,44 @@ public class Vertex implements Comparable<Vertex> {
         return edges;
     }
 
+    public boolean hasInEdges() {
+        return inEdges != null;
+    }
+
+    /* Edges pointing at this vertex. Needs CapGraph.indexInEdges. */
+    public List<Edge> getInEdges() {
+        if (inEdges == null) {
+            throw new IllegalStateException("In-edges are not indexed!");
+        }
+        return inEdges;
+    }
+
+    public List<Vertex> getInNeighbors() {
+        List<Vertex> ret = new ArrayList<Vertex>();
+        for (Edge e : getInEdges()) {
+            ret.add(e.getOtherVertex(this));
+        }
+        return ret;
+    }
+
+    /* True if the edges are in increasing neighbor order, without repeats. */
+    public boolean hasSortedEdges() {
+        return edges.isSorted();
+    }
+
+    public boolean hasEdge(Vertex v) {
+        return edges.find(v.getVal()) != null;
+    }
+
     public Edge getEdge(Vertex v) {
-        for (Edge e : edges) {
-            if (e.getOtherVertex(this) == v) {
-                return e;
+        Edge e = edges.find(v.getVal());
+        if (e != null && e.getOtherVertex(this) == v) {
+            return e;
+        }
+        // another vertex object with the same value, as in subgraph copies
+        for (Edge f : edges) {
+            if (f.getOtherVertex(this) == v) {
+                return f;
             }
         }
         throw new IllegalArgumentException("Edge not found!");
@@ -0,0 +1,67 @@
+package graph;
+
+import java.util.Arrays;
+import util.IntIntMap;
+
+/**
+ * Dictionary between external vertex ids, such as sparse SNAP user ids,
+ * and dense indices 0..n-1 handed out in order of first appearance.
+ * The forward direction is a util.IntIntMap and the reverse direction
+ * is a plain int[], so neither lookup boxes. Algorithms can then keep
+ * per-vertex state in arrays indexed by the dense index and translate
+ * back only when reporting results.
+ */
+public class VertexIds {
+    private final IntIntMap index;
+    private int[] ids;
+    private int size = 0;
+
+    public VertexIds() {
+        this(16);
+    }
+
+    public VertexIds(int expected) {
+        index = new IntIntMap(expected, -1);
+        ids = new int[Math.max(expected, 4)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* Dense index of the id, or -1 if it has not been added. */
+    public int indexOf(int id) {
+        return index.get(id);
+    }
+
+    public boolean contains(int id) {
+        return index.containsKey(id);
+    }
+
+    /* Returns the dense index of the id, giving it the next one if new. */
+    public int add(int id) {
+        int u = index.get(id);
+        if (u >= 0) {
+            return u;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * size);
+        }
+        index.put(id, size);
+        ids[size] = id;
+        return size++;
+    }
+
+    /* External id of a dense index. */
+    public int id(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return ids[index];
+    }
+
+    /* External ids in dense index order. */
+    public int[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -0,0 +1,111 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The vertices of a CapGraph, stored densely by the index VertexIds
+ * gives their value. The int methods look vertices up without boxing;
+ * the Map methods exist so getVertices keeps working for callers that
+ * want a Map<Integer, Vertex>. Iteration is in order of insertion.
+ */
+class VertexMap extends AbstractMap<Integer, Vertex> {
+    private final VertexIds ids = new VertexIds();
+    private Vertex[] byIndex = new Vertex[16];
+
+    Vertex get(int id) {
+        int index = ids.indexOf(id);
+        return index < 0 ? null : byIndex[index];
+    }
+
+    boolean containsId(int id) {
+        return ids.contains(id);
+    }
+
+    /* Adds v under its value unless that value is taken. */
+    boolean add(Vertex v) {
+        int size = ids.size();
+        int index = ids.add(v.getVal());
+        if (index < size) {
+            return false;
+        }
+        if (index == byIndex.length) {
+            byIndex = Arrays.copyOf(byIndex, 2 * index);
+        }
+        byIndex[index] = v;
+        v.index = index;
+        return true;
+    }
+
+    Vertex at(int index) {
+        if (index >= ids.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + ids.size());
+        }
+        return byIndex[index];
+    }
+
+    VertexIds ids() {
+        return ids;
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public Vertex get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsId((Integer) key);
+    }
+
+    @Override
+    public Collection<Vertex> values() {
+        return new AbstractList<Vertex>() {
+            public Vertex get(int index) {
+                return at(index);
+            }
+
+            public int size() {
+                return ids.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, Vertex>> entrySet() {
+        return new AbstractSet<Entry<Integer, Vertex>>() {
+            public int size() {
+                return ids.size();
+            }
+
+            public Iterator<Entry<Integer, Vertex>> iterator() {
+                return new Iterator<Entry<Integer, Vertex>>() {
+                    private int next = 0;
+
+                    public boolean hasNext() {
+                        return next < ids.size();
+                    }
+
+                    public Entry<Integer, Vertex> next() {
+                        if (next >= ids.size()) {
+                            throw new NoSuchElementException();
+                        }
+                        Vertex v = byIndex[next++];
+                        return new SimpleImmutableEntry<Integer, Vertex>(v.getVal(), v);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Checks Bridges on hand-built graphs whose bridges and articulation
+ * points are known, and against removing each edge and vertex in turn
+ * and counting components on small random graphs.
+ *
+ */
+
+package graph.grader;
+
+import java.util.Arrays;
+import java.util.Random;
+import graph.Bridges;
+import graph.CSRGraph;
+import graph.CapGraph;
+
+public class BridgesGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new BridgesGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        // 0 - 1 - 2 - 3: every edge is a bridge, the inner vertices cut
+        Bridges path = new Bridges(graph(4, 0, 1, 1, 2, 2, 3));
+        check("path", bridges(path).equals("[0-1, 1-2, 2-3]")
+                && Arrays.equals(path.articulationPoints(), new int[] { 1, 2 }));
+
+        Bridges cycle = new Bridges(graph(5, 0, 1, 1, 2, 2, 3, 3, 4, 4, 0));
+        check("cycle", cycle.bridgeCount() == 0 && cycle.articulationPoints().length == 0);
+
+        // triangles 0 1 2 and 3 4 5 joined by 2 - 3
+        Bridges joined = new Bridges(graph(6, 0, 1, 1, 2, 2, 0, 3, 4, 4, 5, 5, 3, 2, 3));
+        check("two triangles joined by a bridge", bridges(joined).equals("[2-3]")
+                && Arrays.equals(joined.articulationPoints(), new int[] { 2, 3 })
+                && joined.smallerSide(0) == 3);
+
+        // the center of a star is the only cut vertex, even as the DFS root
+        Bridges star = new Bridges(graph(5, 0, 1, 0, 2, 0, 3, 0, 4));
+        check("star", star.bridgeCount() == 4
+                && Arrays.equals(star.articulationPoints(), new int[] { 0 })
+                && star.smallerSide(0) == 1);
+
+        // cycle 0 1 2 3 with the tail 3 - 4 - 5, and an isolated vertex 6
+        Bridges tail = new Bridges(graph(7, 0, 1, 1, 2, 2, 3, 3, 0, 3, 4, 4, 5));
+        check("cycle with a tail", bridges(tail).equals("[3-4, 4-5]")
+                && Arrays.equals(tail.articulationPoints(), new int[] { 3, 4 })
+                && tail.smallerSide(0) + tail.smallerSide(1) == 3);
+
+        // deep enough to overflow a recursive search
+        int n = 200000;
+        int[] pairs = new int[2 * (n - 1)];
+        for (int u = 0; u + 1 < n; u++) {
+            pairs[2 * u] = u;
+            pairs[2 * u + 1] = u + 1;
+        }
+        Bridges deep = new Bridges(graph(n, pairs));
+        check("long path", deep.bridgeCount() == n - 1 && deep.articulationPoints().length == n - 2);
+
+        Random rng = new Random(38);
+        boolean edges = true;
+        boolean vertices = true;
+        boolean sides = true;
+        for (int trial = 0; trial < 200; trial++) {
+            int size = 1 + rng.nextInt(20);
+            CSRGraph g = randomGraph(size, 2.5 * rng.nextDouble() / size, rng);
+            Bridges b = new Bridges(g);
+            int whole = components(g, -1, -1, -1);
+            for (int u = 0; u < size; u++) {
+                vertices &= b.isArticulationPoint(u) == (components(g, u, -1, -1) > whole);
+            }
+            int found = 0;
+            for (int u = 0; u < size; u++) {
+                for (int v : g.neighbors(u)) {
+                    if (u < v && components(g, -1, u, v) > whole) {
+                        found++;
+                    }
+                }
+            }
+            edges &= found == b.bridgeCount();
+            for (int i = 0; i < b.bridgeCount(); i++) {
+                int[] e = b.bridge(i);
+                edges &= components(g, -1, e[0], e[1]) > whole;
+                int near = reach(g, e[0], e[0], e[1]);
+                int far = reach(g, e[1], e[0], e[1]);
+                sides &= b.smallerSide(i) == Math.min(near, far);
+            }
+        }
+        check("bridges match removing each edge on random graphs", edges);
+        check("articulation points match removing each vertex on random graphs", vertices);
+        check("smaller sides match a search from both ends", sides);
+    }
+
+    // An undirected CSRGraph on 0 .. n-1 with the given (u, v) pairs.
+    private static CSRGraph graph(int n, int... pairs) {
+        CapGraph g = new CapGraph();
+        for (int u = 0; u < n; u++) {
+            g.addVertex(u);
+        }
+        for (int i = 0; i < pairs.length; i += 2) {
+            g.addEdge(pairs[i], pairs[i + 1]);
+        }
+        return CSRGraph.fromCapGraph(g, true);
+    }
+
+    private static String bridges(Bridges b) {
+        String[] ret = new String[b.bridgeCount()];
+        for (int i = 0; i < ret.length; i++) {
+            int[] e = b.bridge(i);
+            ret[i] = Math.min(e[0], e[1]) + "-" + Math.max(e[0], e[1]);
+        }
+        Arrays.sort(ret);
+        return Arrays.toString(ret);
+    }
+
+    // Components of g without vertex skip and edge a - b; -1 skips nothing.
+    private static int components(CSRGraph g, int skip, int a, int b) {
+        boolean[] seen = new boolean[g.size()];
+        int count = 0;
+        for (int u = 0; u < g.size(); u++) {
+            if (u != skip && !seen[u]) {
+                count++;
+                search(g, u, skip, a, b, seen);
+            }
+        }
+        return count;
+    }
+
+    // Vertices reachable from start without crossing the edge a - b.
+    private static int reach(CSRGraph g, int start, int a, int b) {
+        return search(g, start, -1, a, b, new boolean[g.size()]);
+    }
+
+    private static int search(CSRGraph g, int start, int skip, int a, int b, boolean[] seen) {
+        int[] stack = new int[g.size()];
+        int top = 0;
+        int count = 1;
+        stack[top++] = start;
+        seen[start] = true;
+        while (top > 0) {
+            int u = stack[--top];
+            for (int v : g.neighbors(u)) {
+                boolean cut = (u == a && v == b) || (u == b && v == a);
+                if (v != skip && !cut && !seen[v]) {
+                    seen[v] = true;
+                    count++;
+                    stack[top++] = v;
+                }
+            }
+        }
+        return count;
+    }
+}
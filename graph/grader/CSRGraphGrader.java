@@ -0,0 +1,91 @@
+/**
+ * Checks CSRGraph.sccLabels against CapGraph.getSCCs on the SCC test
+ * graphs and on twitter_higgs, before and after every reordering, and
+ * that reordered snapshots still look up every id.
+ *
+ */
+
+package graph.grader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.Graph;
+import graph.Reorder;
+import util.GraphLoader;
+
+public class CSRGraphGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new CSRGraphGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        boolean small = true;
+        boolean reordered = true;
+        boolean transposed = true;
+        for (int i = 1; i <= 10; i++) {
+            CapGraph g = new CapGraph();
+            GraphLoader.loadGraph(g, "data/scc/T" + i);
+            String expected = fromGraphs(g.getSCCs());
+            CSRGraph csr = CSRGraph.fromCapGraph(g);
+            small &= fromLabels(csr).equals(expected);
+            transposed &= fromLabels(csr.transpose()).equals(expected);
+            for (Reorder.Order how : Reorder.Order.values()) {
+                reordered &= fromLabels(Reorder.apply(csr, Reorder.order(csr, how))).equals(expected);
+            }
+        }
+        check("sccLabels matches getSCCs on the SCC test graphs", small);
+        check("sccLabels matches getSCCs after every reordering", reordered);
+        check("the transpose has the same components", transposed);
+
+        CapGraph higgs = new CapGraph();
+        GraphLoader.loadGraph(higgs, "data/twitter_higgs.txt");
+        CSRGraph csr = CSRGraph.fromCapGraph(higgs);
+        String expected = fromGraphs(higgs.getSCCs());
+        check("sccLabels matches getSCCs on twitter_higgs", fromLabels(csr).equals(expected));
+
+        boolean lookup = true;
+        for (Reorder.Order how : Reorder.Order.values()) {
+            CSRGraph r = Reorder.apply(csr, Reorder.order(csr, how));
+            for (int u = 0; u < r.size(); u++) {
+                lookup &= r.indexOf(r.id(u)) == u;
+            }
+            lookup &= r.indexOf(-1) == -1 && r.edgeCount() == csr.edgeCount();
+        }
+        check("reordered snapshots look up every id", lookup);
+    }
+
+    // Components as a canonical string of sorted id sets.
+    private static String fromLabels(CSRGraph g) {
+        int[] labels = g.sccLabels();
+        Map<Integer, TreeSet<Integer>> sets = new HashMap<Integer, TreeSet<Integer>>();
+        for (int u = 0; u < g.size(); u++) {
+            sets.computeIfAbsent(labels[u], k -> new TreeSet<Integer>()).add(g.id(u));
+        }
+        return canonical(new ArrayList<TreeSet<Integer>>(sets.values()));
+    }
+
+    private static String fromGraphs(List<Graph> sccs) {
+        List<TreeSet<Integer>> sets = new ArrayList<TreeSet<Integer>>();
+        for (Graph scc : sccs) {
+            sets.add(new TreeSet<Integer>(scc.exportGraph().keySet()));
+        }
+        return canonical(sets);
+    }
+
+    private static String canonical(List<TreeSet<Integer>> sets) {
+        List<String> ret = new ArrayList<String>();
+        for (TreeSet<Integer> set : sets) {
+            ret.add(set.toString());
+        }
+        Collections.sort(ret);
+        return ret.toString();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Grader made of numbered pass/fail checks, for the graph algorithms
+ * that have no answer files. Feedback is printed in the Coursera format
+ * used by the other graders.
+ *
+ */
+
+package graph.grader;
+
+import java.io.PrintWriter;
+import java.util.Random;
+import graph.CSRGraph;
+import graph.CapGraph;
+
+public abstract class CheckGrader extends Grader {
+    protected int totalTests = 0;
+    protected int testsPassed = 0;
+
+    /* Runs the checks; an exception fails the remaining ones. */
+    protected abstract void runChecks() throws Exception;
+
+    @Override
+    public void run() {
+        out = new PrintWriter(System.out);
+        try {
+            runChecks();
+        } catch (Exception e) {
+            feedback = "An error occurred during runtime.\\n" + feedback + "\\nError during runtime: " + e;
+            totalTests++;
+        }
+    }
+
+    /* Runs every check and prints the score. */
+    public void grade() {
+        run();
+        double score = totalTests == 0 ? 0 : (double)testsPassed/totalTests;
+        out.println(makeJson(score, feedback));
+        out.close();
+    }
+
+    protected void check(String test, boolean passed) {
+        totalTests++;
+        feedback += appendFeedback(totalTests, test);
+        if (passed) {
+            testsPassed++;
+            feedback += "PASSED.";
+        } else {
+            feedback += "FAILED. ";
+        }
+    }
+
+    // G(n, p) on the values 0 .. n-1, as an undirected CSRGraph.
+    protected static CSRGraph randomGraph(int n, double p, Random rng) {
+        CapGraph g = new CapGraph();
+        for (int u = 0; u < n; u++) {
+            g.addVertex(u);
+        }
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                if (rng.nextDouble() < p) {
+                    g.addEdge(u, v);
+                }
+            }
+        }
+        return CSRGraph.fromCapGraph(g, true);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Checks Cliques against a naive enumeration that grows every clique
+ * one larger vertex at a time and keeps those nothing can extend, on
+ * random graphs wider than one bitset word and on small egonets.
+ *
+ */
+
+package graph.grader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.Cliques;
+import util.GraphLoader;
+
+public class CliquesGrader extends CheckGrader {
+    // egonets larger than this have too many sub-cliques to list naively
+    private static final int MAX_EGONET = 24;
+
+    public static void main(String[] args) {
+        new CliquesGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        Random rng = new Random(32);
+        boolean dense = true;
+        boolean wide = true;
+        for (int trial = 0; trial < 100; trial++) {
+            CSRGraph g = randomGraph(1 + rng.nextInt(16), rng.nextDouble(), rng);
+            dense &= agrees(g, 1 + rng.nextInt(3));
+        }
+        for (int trial = 0; trial < 20; trial++) {
+            CSRGraph g = randomGraph(65 + rng.nextInt(100), 0.02 + 0.08 * rng.nextDouble(), rng);
+            wide &= agrees(g, 1 + rng.nextInt(3));
+        }
+        check("maximal cliques match naive enumeration on small graphs", dense);
+        check("maximal cliques match naive enumeration past 64 vertices", wide);
+
+        CapGraph fb = new CapGraph();
+        GraphLoader.loadGraph(fb, "data/facebook_1000.txt");
+        List<Integer> small = new ArrayList<Integer>();
+        for (int center : fb.getVertices().keySet()) {
+            if (fb.getVertex(center).degree() <= MAX_EGONET) {
+                small.add(center);
+            }
+        }
+        boolean egonets = true;
+        for (int i = 0; i < small.size(); i += 5) {
+            egonets &= agrees(CSRGraph.egonet(fb, small.get(i), true), 3);
+        }
+        check("maximal cliques match naive enumeration on egonets", egonets);
+
+        // the batch entry point reports original ids, grouped by center
+        int[] centers = new int[Math.min(small.size(), 50)];
+        List<List<String>> found = new ArrayList<List<String>>();
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = small.get(i);
+            found.add(Collections.synchronizedList(new ArrayList<String>()));
+        }
+        Cliques.egonets(fb, centers, 2, (center, ids) -> {
+            int[] sorted = ids.clone();
+            Arrays.sort(sorted);
+            found.get(indexOf(centers, center)).add(Arrays.toString(sorted));
+        });
+        boolean batch = true;
+        for (int i = 0; i < centers.length; i++) {
+            CSRGraph ego = CSRGraph.egonet(fb, centers[i], false);
+            List<String> expected = new ArrayList<String>();
+            for (int[] clique : naive(ego, 2)) {
+                int[] ids = new int[clique.length];
+                for (int k = 0; k < ids.length; k++) {
+                    ids[k] = ego.id(clique[k]);
+                }
+                Arrays.sort(ids);
+                expected.add(Arrays.toString(ids));
+            }
+            Collections.sort(expected);
+            List<String> actual = new ArrayList<String>(found.get(i));
+            Collections.sort(actual);
+            batch &= actual.equals(expected);
+        }
+        check("egonets reports the cliques of each center by id", batch);
+    }
+
+    // Compares Cliques.enumerate with the naive list, as sorted sets.
+    private static boolean agrees(CSRGraph g, int minSize) {
+        List<String> actual = new ArrayList<String>();
+        Cliques.enumerate(g, minSize, vertices -> {
+            int[] sorted = vertices.clone();
+            Arrays.sort(sorted);
+            actual.add(Arrays.toString(sorted));
+        });
+        List<String> expected = new ArrayList<String>();
+        for (int[] clique : naive(g, minSize)) {
+            expected.add(Arrays.toString(clique));
+        }
+        Collections.sort(actual);
+        Collections.sort(expected);
+        return actual.equals(expected);
+    }
+
+    // Every maximal clique of at least minSize vertices, each sorted.
+    private static List<int[]> naive(CSRGraph g, int minSize) {
+        int n = g.size();
+        boolean[][] adj = new boolean[n][n];
+        for (int u = 0; u < n; u++) {
+            for (int v : g.neighbors(u)) {
+                adj[u][v] = true;
+            }
+        }
+        List<int[]> ret = new ArrayList<int[]>();
+        int[] clique = new int[n];
+        for (int u = 0; u < n; u++) {
+            clique[0] = u;
+            grow(adj, clique, 1, minSize, ret);
+        }
+        return ret;
+    }
+
+    private static void grow(boolean[][] adj, int[] clique, int size, int minSize, List<int[]> ret) {
+        int n = adj.length;
+        for (int v = clique[size - 1] + 1; v < n; v++) {
+            if (joinsAll(adj, clique, size, v)) {
+                clique[size] = v;
+                grow(adj, clique, size + 1, minSize, ret);
+            }
+        }
+        if (size < minSize) {
+            return;
+        }
+        for (int v = 0; v < n; v++) {
+            if (joinsAll(adj, clique, size, v)) {
+                return;
+            }
+        }
+        ret.add(Arrays.copyOf(clique, size));
+    }
+
+    // True if v is outside the clique and adjacent to all of it.
+    private static boolean joinsAll(boolean[][] adj, int[] clique, int size, int v) {
+        for (int i = 0; i < size; i++) {
+            if (!adj[clique[i]][v]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
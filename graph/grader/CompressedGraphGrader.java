@@ -0,0 +1,127 @@
+/**
+ * Checks that CompressedGraph gives back the CSRGraph it was built from,
+ * in memory and through a file, for directed, undirected and reordered
+ * graphs and for ids at the ends of the int range.
+ *
+ */
+
+package graph.grader;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.CompressedGraph;
+import graph.Reorder;
+import util.GraphLoader;
+
+public class CompressedGraphGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new CompressedGraphGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() throws Exception {
+        CapGraph higgs = new CapGraph();
+        GraphLoader.loadGraph(higgs, "data/twitter_higgs.txt");
+        CSRGraph directed = CSRGraph.fromCapGraph(higgs);
+        CSRGraph undirected = CSRGraph.fromCapGraph(higgs, true);
+        check("round trip of a directed graph", roundTrip(directed));
+        check("round trip of an undirected graph", roundTrip(undirected));
+
+        boolean reordered = true;
+        for (Reorder.Order how : Reorder.Order.values()) {
+            reordered &= roundTrip(Reorder.apply(undirected, Reorder.order(undirected, how)));
+        }
+        check("round trip of every reordering", reordered);
+
+        // extreme ids, neighbors far below and above, and a self-loop
+        int[] ids = { Integer.MIN_VALUE, -7, 0, 5, Integer.MAX_VALUE };
+        int[] from = { 4, 4, 0, 2, 2, 1 };
+        int[] to = { 0, 3, 4, 2, 1, 0 };
+        CSRGraph edges = CSRGraph.build(ids, from, to, from.length, false);
+        int[] reverse = { 4, 3, 2, 1, 0 };
+        check("round trip of extreme ids and gaps",
+                roundTrip(edges) && roundTrip(Reorder.apply(edges, reverse)));
+
+        // a hub whose gaps need multi-byte varints
+        Random rng = new Random(48);
+        int n = 300000;
+        int[] hubIds = new int[n];
+        for (int u = 0; u < n; u++) {
+            hubIds[u] = 3 * u - n;
+        }
+        int[] hubFrom = new int[2000];
+        int[] hubTo = new int[2000];
+        for (int i = 0; i < hubFrom.length; i++) {
+            hubFrom[i] = n / 2;
+            hubTo[i] = rng.nextInt(n);
+        }
+        check("round trip of a hub with wide gaps",
+                roundTrip(CSRGraph.build(hubIds, hubFrom, hubTo, hubFrom.length, true)));
+
+        CompressedGraph c = CompressedGraph.fromCSR(directed);
+        boolean lookup = c.indexOf(-1) == -1 && c.indexOf(Integer.MAX_VALUE) == -1;
+        for (int u = 0; u < c.size(); u++) {
+            lookup &= c.indexOf(c.id(u)) == u;
+        }
+        check("indexOf finds every id and rejects missing ones", lookup);
+    }
+
+    // Compares the graph with its decompressed and its reread copies.
+    private static boolean roundTrip(CSRGraph g) throws Exception {
+        CompressedGraph c = CompressedGraph.fromCSR(g);
+        File file = File.createTempFile("compressed", ".bin");
+        try {
+            c.write(file.getPath());
+            CompressedGraph read = CompressedGraph.read(file.getPath());
+            return same(g, c) && same(g, read) && same(g, c.toCSR()) && same(g, read.toCSR());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static boolean same(CSRGraph g, CompressedGraph c) {
+        if (c.size() != g.size()) {
+            return false;
+        }
+        CompressedGraph.Cursor cursor = null;
+        int[] out = new int[g.size() + 1];
+        for (int u = 0; u < g.size(); u++) {
+            int[] expected = g.neighbors(u);
+            if (c.id(u) != g.id(u) || c.degree(u) != expected.length) {
+                return false;
+            }
+            int count = c.neighbors(u, out);
+            if (!Arrays.equals(Arrays.copyOf(out, count), expected)) {
+                return false;
+            }
+            // one cursor reused across every vertex
+            cursor = cursor == null ? c.cursor(u) : cursor.reset(u);
+            for (int v : expected) {
+                if (!cursor.hasNext() || cursor.next() != v) {
+                    return false;
+                }
+            }
+            if (cursor.hasNext()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean same(CSRGraph g, CSRGraph h) {
+        if (h.size() != g.size() || h.edgeCount() != g.edgeCount()) {
+            return false;
+        }
+        for (int u = 0; u < g.size(); u++) {
+            if (h.id(u) != g.id(u) || !Arrays.equals(h.neighbors(u), g.neighbors(u))
+                    || h.indexOf(g.id(u)) != u) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
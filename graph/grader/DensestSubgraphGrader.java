@@ -0,0 +1,66 @@
+/**
+ * Checks DensestSubgraph.exact against a brute-force search over every
+ * vertex subset of small random graphs, and against greedy peeling on
+ * real egonets.
+ *
+ */
+
+package graph.grader;
+
+import java.util.Random;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.DensestSubgraph;
+import util.GraphLoader;
+
+public class DensestSubgraphGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new DensestSubgraphGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        Random rng = new Random(28);
+        boolean matches = true;
+        boolean reported = true;
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 2 + rng.nextInt(11);
+            CSRGraph g = randomGraph(n, 0.2 + 0.6 * rng.nextDouble(), rng);
+            DensestSubgraph.Result exact = DensestSubgraph.exact(g);
+            matches &= Math.abs(exact.density - bruteForce(g)) < 1e-9;
+            reported &= Math.abs(exact.density - DensestSubgraph.density(g, exact.vertices)) < 1e-9;
+        }
+        check("exact matches brute force on small graphs", matches);
+        check("exact reports the density of the set it returns", reported);
+
+        CapGraph fb = new CapGraph();
+        GraphLoader.loadGraph(fb, "data/facebook_1000.txt");
+        boolean atLeastGreedy = true;
+        int count = 0;
+        for (int center : fb.getVertices().keySet()) {
+            if (count++ % 10 != 0) {
+                continue;
+            }
+            CSRGraph ego = CSRGraph.egonet(fb, center, true);
+            atLeastGreedy &= DensestSubgraph.exact(ego).density >= DensestSubgraph.peel(ego).density;
+        }
+        check("exact is at least as dense as peel on egonets", atLeastGreedy);
+    }
+
+    private static double bruteForce(CSRGraph g) {
+        int n = g.size();
+        double best = 0;
+        for (int mask = 1; mask < (1 << n); mask++) {
+            int[] set = new int[Integer.bitCount(mask)];
+            int size = 0;
+            for (int u = 0; u < n; u++) {
+                if ((mask & (1 << u)) != 0) {
+                    set[size++] = u;
+                }
+            }
+            best = Math.max(best, DensestSubgraph.density(g, set));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Checks that edge ids stay unique within a graph and that subgraphs
+ * keep their own edges, so columns and removals on an egonet never
+ * reach back into the graph it was cut from.
+ *
+ */
+
+package graph.grader;
+
+import java.util.HashSet;
+import java.util.Map;
+import util.GraphLoader;
+import graph.CapGraph;
+import graph.Edge;
+import graph.EdgeColumn;
+import graph.Vertex;
+
+public class EdgeColumnGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new EdgeColumnGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        CapGraph g = new CapGraph();
+        GraphLoader.loadGraph(g, "data/facebook_1000.txt");
+        EdgeColumn weight = g.edgeColumn("weight");
+        for (Vertex v : g.getVertices().values()) {
+            for (Edge e : v.getEdges()) {
+                weight.set(e, e.getId());
+            }
+        }
+        int numbered = g.edgeCount();
+
+        int center = g.getVertices().keySet().iterator().next();
+        CapGraph ego = (CapGraph) g.getEgonet(center);
+        EdgeColumn egoWeight = ego.edgeColumn("weight");
+        boolean own = true;
+        for (Vertex v : ego.getVertices().values()) {
+            for (Edge e : v.getEdges()) {
+                own &= e.getOtherVertex(v) == ego.getVertex(e.getOtherVertex(v).getVal());
+                egoWeight.set(e, -1);
+            }
+        }
+        check("egonet edges point at the egonet's vertices", own);
+        check("egonet columns leave the parent's values alone", unchanged(g, weight, numbered));
+
+        Vertex first = ego.getVertices().values().iterator().next();
+        int before = g.getVertex(first.getVal()).degree();
+        if (first.degree() > 0) {
+            first.removeEdge(first.getEdges().get(0).getOtherVertex(first));
+        }
+        check("removing an egonet edge leaves the parent's edge",
+                g.getVertex(first.getVal()).degree() == before);
+
+        // edges from Vertex.addEdge get ids from the graph's own counter
+        Vertex a = g.getVertex(center);
+        Vertex b = g.getVertices().values().stream()
+                .filter(v -> v != a).findFirst().get();
+        Edge late = new Edge(a, b);
+        a.addEdge(late);
+        boolean unset = weight.get(late) == 0;
+        g.addEdge(center, b.getVal());
+        weight.set(late, 7);
+        check("an edge without an id reads the fill value until set",
+                unset && weight.get(late) == 7 && late.getId() >= numbered
+                && unchanged(g, weight, numbered));
+        check("edge ids are unique within a graph", uniqueIds(g));
+
+        CapGraph reverse = CapGraph.getReverseGraph(g);
+        boolean ids = true;
+        for (Vertex v : reverse.getVertices().values()) {
+            for (Edge e : v.getEdges()) {
+                ids &= e.getId() >= 0;
+            }
+        }
+        check("the reverse graph numbers its edges", ids && uniqueIds(reverse));
+    }
+
+    // Every edge numbered at load time still holds its own id.
+    private static boolean unchanged(CapGraph g, EdgeColumn weight, int numbered) {
+        for (Vertex v : g.getVertices().values()) {
+            for (Edge e : v.getEdges()) {
+                if (e.getId() < numbered && weight.get(e) != e.getId()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean uniqueIds(CapGraph g) {
+        HashSet<Integer> ids = new HashSet<Integer>();
+        for (Map.Entry<Integer, Vertex> entry : g.getVertices().entrySet()) {
+            for (Edge e : entry.getValue().getEdges()) {
+                if (e.getId() >= 0 && !ids.add(e.getId())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
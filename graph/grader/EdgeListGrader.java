@@ -0,0 +1,153 @@
+/**
+ * Checks the edge lookup of hub vertices, whose edge lists keep a map
+ * from neighbor to first edge, when parallel edges are removed, and
+ * that removing through the List API keeps in-edges in step.
+ *
+ */
+
+package graph.grader;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import graph.CapGraph;
+import graph.Edge;
+import graph.Vertex;
+
+public class EdgeListGrader extends CheckGrader {
+    // more neighbors than the list scans before it builds its map
+    private static final int NEIGHBORS = 40;
+
+    public static void main(String[] args) {
+        new EdgeListGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        // the second of two parallel edges leaves the first findable
+        Vertex[] vs = hub();
+        Edge first = vs[0].getEdge(vs[5]);
+        Edge second = new Edge(vs[0], vs[5]);
+        vs[0].addEdge(second);
+        remove(vs[0].getEdges(), second);
+        check("remove the repeat of a parallel edge", vs[0].hasEdge(vs[5])
+                && vs[0].getEdge(vs[5]) == first && vs[0].getEdges().size() == NEIGHBORS);
+
+        // removing the first edge promotes the second
+        vs = hub();
+        first = vs[0].getEdge(vs[5]);
+        second = new Edge(vs[0], vs[5]);
+        vs[0].addEdge(second);
+        remove(vs[0].getEdges(), first);
+        check("remove the first of two parallel edges", vs[0].getEdge(vs[5]) == second);
+
+        // removeEdge takes one edge at a time, then the neighbor is gone
+        vs[0].addEdge(new Edge(vs[0], vs[5]));
+        vs[0].removeEdge(vs[5]);
+        boolean still = vs[0].hasEdge(vs[5]);
+        vs[0].removeEdge(vs[5]);
+        check("remove parallel edges by neighbor", still && !vs[0].hasEdge(vs[5]));
+
+        // reading by position across holes
+        vs = hub();
+        vs[0].getEdges().remove(3);
+        vs[0].getEdges().remove(10);
+        List<Edge> edges = vs[0].getEdges();
+        boolean inOrder = edges.size() == NEIGHBORS - 2;
+        int expected = 1;
+        for (int i = 0; i < edges.size(); i++, expected++) {
+            if (expected == 4 || expected == 12) {
+                expected++;
+            }
+            inOrder &= edges.get(i).getOtherVertex(vs[0]) == vs[expected];
+        }
+        check("get by position skips removed edges", inOrder);
+
+        // an indexed loop over a list with holes, forwards then back
+        vs = hub();
+        edges = vs[0].getEdges();
+        for (int i = NEIGHBORS - 1; i >= 0; i -= 3) {
+            edges.remove(i);
+        }
+        List<Edge> copy = new ArrayList<Edge>(edges);
+        boolean same = true;
+        for (int i = 0; i < edges.size(); i++) {
+            same &= edges.get(i) == copy.get(i);
+        }
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            same &= edges.get(i) == copy.get(i);
+        }
+        for (int i = 0; i < edges.size(); i += 2) {
+            same &= edges.get(i) == copy.get(i);
+            same &= edges.get(edges.size() - 1 - i) == copy.get(copy.size() - 1 - i);
+        }
+        check("indexed reads in any order match the iterator", same);
+
+        // removing by position while walking forward
+        for (int i = 0; i < edges.size(); i++) {
+            edges.remove(i);
+            copy.remove(i);
+        }
+        check("remove by position inside an indexed loop", edges.equals(copy)
+                && new ArrayList<Edge>(edges).equals(copy));
+
+        // List removals on an out-edge list also drop the in-edge
+        CapGraph g = new CapGraph();
+        for (int i = 0; i <= NEIGHBORS; i++) {
+            g.addVertex(i);
+        }
+        g.indexInEdges();
+        for (int i = 1; i <= NEIGHBORS; i++) {
+            g.addEdge(0, i);
+            g.addEdge(i, 0);
+        }
+        Vertex hub = g.getVertex(0);
+        List<Edge> drop = new ArrayList<Edge>();
+        for (Edge e : hub.getEdges()) {
+            if (e.getOtherVertex(hub).getVal() % 2 == 0) {
+                drop.add(e);
+            }
+        }
+        hub.getEdges().removeAll(drop);
+        hub.getEdges().remove(hub.getEdge(g.getVertex(1)));
+        hub.getEdges().remove(0);
+        boolean inStep = true;
+        for (int i = 1; i <= NEIGHBORS; i++) {
+            Vertex w = g.getVertex(i);
+            inStep &= hub.hasEdge(w) == w.getInNeighbors().contains(hub);
+        }
+        check("removeAll and remove on out-edges update in-edges",
+                inStep && hub.degree() == NEIGHBORS / 2 - 2);
+
+        // and the other way round, from an in-edge list
+        hub.getInEdges().removeIf(e -> e.getOtherVertex(hub).getVal() > NEIGHBORS / 2);
+        boolean back = true;
+        for (int i = 1; i <= NEIGHBORS; i++) {
+            Vertex w = g.getVertex(i);
+            back &= w.hasEdge(hub) == (i <= NEIGHBORS / 2);
+        }
+        check("removals on in-edges update out-edges", back);
+    }
+
+    // Vertex 0 with an edge to each of 1 .. NEIGHBORS.
+    private static Vertex[] hub() {
+        Vertex[] vs = new Vertex[NEIGHBORS + 1];
+        for (int i = 0; i <= NEIGHBORS; i++) {
+            vs[i] = new Vertex(i);
+        }
+        for (int i = 1; i <= NEIGHBORS; i++) {
+            vs[0].addEdge(new Edge(vs[0], vs[i]));
+        }
+        return vs;
+    }
+
+    private static void remove(List<Edge> edges, Edge e) {
+        for (Iterator<Edge> it = edges.iterator(); it.hasNext(); ) {
+            if (it.next() == e) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+}
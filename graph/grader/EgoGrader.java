@@ -11,10 +11,10 @@ package graph.grader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Scanner;
 import util.GraphLoader;
+import util.IntHashSet;
+import util.IntSetMap;
 import graph.CapGraph;
 import graph.Graph;
 
@@ -59,7 +59,7 @@ public class EgoGrader extends Grader {
             for (int i = 0; i < 10; i++) {
                 feedback += appendFeedback(i + 1, "Starting from node " + i);
                 // Run user's implementation and turn the output into readable strings
-                HashMap<Integer, HashSet<Integer>> res = graph.getEgonet(i).exportGraph();
+                IntSetMap res = graph.getEgonet(i).exportSets();
                 BufferedReader br = new BufferedReader(new FileReader("data/ego_answers/ego_" + i + ".txt"));
                 String next;
                 int count = 0;
@@ -68,14 +68,14 @@ public class EgoGrader extends Grader {
                     next = next.replaceAll("[:,]", " ");
                     Scanner sc = new Scanner(next);
                     int vertex = sc.nextInt();
-                    HashSet<Integer> others = res.get(vertex);
+                    IntHashSet others = res.get(vertex);
                     if (others == null) {
                         feedback += "FAILED. Egonet does not include vertex " + vertex + ".";
                         failed = true;
                         break;
                     }
 
-                    HashSet<Integer> check = new HashSet<Integer>();
+                    IntHashSet check = new IntHashSet();
                     while(sc.hasNextInt()) {
                         check.add(sc.nextInt());
                     }
@@ -0,0 +1,123 @@
+/**
+ * Checks that an Ingester started over a graph that already has edges
+ * counts its weakly connected components correctly, before and after
+ * streaming more edges in.
+ *
+ */
+
+package graph.grader;
+
+import java.io.File;
+import java.util.Scanner;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.Ingester;
+import util.GraphLoader;
+import util.IntArrayList;
+
+public class IngesterGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new IngesterGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() throws Exception {
+        // an edge to a vertex added later than its source
+        CapGraph g = isolated(4);
+        g.addEdge(0, 3);
+        try (Ingester in = new Ingester(g)) {
+            check("edge to a later vertex inside the first block", in.componentCount() == 3);
+        }
+
+        // a neighbor index past the initial union-find capacity
+        g = isolated(40);
+        g.addEdge(0, 30);
+        try (Ingester in = new Ingester(g)) {
+            check("edge to a vertex past the initial capacity", in.componentCount() == 39);
+            in.add(1, 2);
+            in.add(30, 31);
+            in.add(100, 101);
+            in.flush();
+            check("edges streamed in after seeding", in.componentCount() == 38);
+        }
+
+        // half of a real graph up front, the rest from two producers
+        int[][] edges = read("data/facebook_1000.txt");
+        int half = edges[0].length / 2;
+        g = new CapGraph();
+        for (int i = 0; i < half; i++) {
+            g.addVertex(edges[0][i]);
+            g.addVertex(edges[1][i]);
+            g.addEdge(edges[0][i], edges[1][i]);
+        }
+        final Ingester in = new Ingester(g, 64);
+        check("seeded from half of facebook_1000", in.componentCount() == components(g));
+        Thread[] producers = new Thread[2];
+        for (int k = 0; k < producers.length; k++) {
+            final int first = half + k;
+            producers[k] = new Thread(() -> {
+                for (int i = first; i < edges[0].length; i += 2) {
+                    in.add(edges[0][i], edges[1][i]);
+                }
+            });
+            producers[k].start();
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        in.close();
+        CapGraph whole = new CapGraph();
+        GraphLoader.loadGraph(whole, "data/facebook_1000.txt");
+        check("rest of facebook_1000 ingested", in.getApplied() == edges[0].length - half
+                && in.componentCount() == components(g)
+                && g.exportGraph().equals(whole.exportGraph()));
+    }
+
+    // Vertices 0 .. n-1 and no edges.
+    private static CapGraph isolated(int n) {
+        CapGraph g = new CapGraph();
+        for (int i = 0; i < n; i++) {
+            g.addVertex(i);
+        }
+        return g;
+    }
+
+    private static int[][] read(String file) throws Exception {
+        Scanner sc = new Scanner(new File(file));
+        IntArrayList from = new IntArrayList();
+        IntArrayList to = new IntArrayList();
+        while (sc.hasNextInt()) {
+            from.add(sc.nextInt());
+            to.add(sc.nextInt());
+        }
+        sc.close();
+        return new int[][] { from.toArray(), to.toArray() };
+    }
+
+    // Weak components by breadth-first search over both directions.
+    private static int components(CapGraph g) {
+        CSRGraph u = CSRGraph.fromCapGraph(g, true);
+        boolean[] seen = new boolean[u.size()];
+        int[] queue = new int[u.size()];
+        int count = 0;
+        for (int root = 0; root < u.size(); root++) {
+            if (seen[root]) {
+                continue;
+            }
+            count++;
+            seen[root] = true;
+            int tail = 0;
+            queue[tail++] = root;
+            for (int head = 0; head < tail; head++) {
+                for (int v : u.neighbors(queue[head])) {
+                    if (!seen[v]) {
+                        seen[v] = true;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Checks every Intersect kernel against a naive merge on random sorted
+ * slices, from equal sizes to skewed pairs that take the galloping path.
+ *
+ */
+
+package graph.grader;
+
+import java.util.Arrays;
+import java.util.Random;
+import graph.Intersect;
+
+public class IntersectGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new IntersectGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        String[] names = { "MERGE", "GALLOP", "BLOCK", "ADAPTIVE" };
+        Intersect.Kernel[] kernels = { Intersect.MERGE, Intersect.GALLOP, Intersect.BLOCK, Intersect.ADAPTIVE };
+        boolean[] counts = new boolean[kernels.length];
+        boolean[] values = new boolean[kernels.length];
+        Arrays.fill(counts, true);
+        Arrays.fill(values, true);
+
+        Random rng = new Random(31);
+        for (int trial = 0; trial < 2000; trial++) {
+            // sizes from empty to a hub against a leaf
+            int sizeA = rng.nextInt(trial % 4 == 0 ? 2000 : 40);
+            int sizeB = rng.nextInt(40);
+            int range = 1 + rng.nextInt(4 * (sizeA + sizeB) + 1);
+            int[] a = sortedSet(sizeA, range, rng);
+            int[] b = sortedSet(sizeB, range, rng);
+            // kernels take slices, so pad both arrays on either side
+            int fromA = rng.nextInt(3);
+            int fromB = rng.nextInt(3);
+            int[] pa = pad(a, fromA, rng);
+            int[] pb = pad(b, fromB, rng);
+
+            int[] expected = naive(a, b);
+            for (int k = 0; k < kernels.length; k++) {
+                int[] out = new int[Math.min(a.length, b.length)];
+                int count = kernels[k].intersect(pa, fromA, fromA + a.length,
+                        pb, fromB, fromB + b.length, out);
+                int countOnly = kernels[k].intersect(pa, fromA, fromA + a.length,
+                        pb, fromB, fromB + b.length, null);
+                counts[k] &= count == expected.length && countOnly == expected.length;
+                values[k] &= Arrays.equals(Arrays.copyOf(out, Math.max(0, count)), expected);
+            }
+        }
+        for (int k = 0; k < kernels.length; k++) {
+            check(names[k] + " counts match a naive merge", counts[k]);
+            check(names[k] + " writes the common values in order", values[k]);
+        }
+    }
+
+    private static int[] sortedSet(int size, int range, Random rng) {
+        int[] ret = new int[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = rng.nextInt(range) - range / 2;
+        }
+        Arrays.sort(ret);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ret[i] != ret[distinct - 1]) {
+                ret[distinct++] = ret[i];
+            }
+        }
+        return Arrays.copyOf(ret, distinct);
+    }
+
+    // a from index before of a larger array whose other entries are junk
+    private static int[] pad(int[] a, int before, Random rng) {
+        int[] ret = new int[before + a.length + rng.nextInt(3)];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = rng.nextInt();
+        }
+        System.arraycopy(a, 0, ret, before, a.length);
+        return ret;
+    }
+
+    private static int[] naive(int[] a, int[] b) {
+        int[] ret = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int x : a) {
+            for (int y : b) {
+                if (x == y) {
+                    ret[count++] = x;
+                }
+            }
+        }
+        return Arrays.copyOf(ret, count);
+    }
+}
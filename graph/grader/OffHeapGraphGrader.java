@@ -0,0 +1,154 @@
+/**
+ * Checks that an OffHeapGraph, held in direct buffers or reopened from a
+ * store file, answers like a CapGraph loaded from the same edge file,
+ * and that malformed edge files are rejected.
+ *
+ */
+
+package graph.grader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.Graph;
+import graph.OffHeapGraph;
+import util.GraphLoader;
+
+public class OffHeapGraphGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new OffHeapGraphGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() throws Exception {
+        boolean exports = true;
+        boolean sccs = true;
+        boolean egonets = true;
+        boolean distances = true;
+        List<String> files = new ArrayList<String>();
+        for (int i = 1; i <= 10; i++) {
+            files.add("data/scc/T" + i);
+        }
+        files.add("data/facebook_1000.txt");
+        files.add("data/twitter_higgs.txt");
+        for (String edgeFile : files) {
+            CapGraph g = new CapGraph();
+            GraphLoader.loadGraph(g, edgeFile);
+            String expected = components(g.getSCCs());
+            File store = File.createTempFile("offheap", ".bin");
+            try {
+                OffHeapGraph direct = OffHeapGraph.load(edgeFile, null);
+                OffHeapGraph.load(edgeFile, store.getPath());
+                OffHeapGraph mapped = OffHeapGraph.open(store.getPath());
+                for (OffHeapGraph h : Arrays.asList(direct, mapped)) {
+                    exports &= h.exportGraph().equals(g.exportGraph())
+                            && h.exportSets().equals(g.exportSets())
+                            && h.size() == g.size();
+                    sccs &= components(h.getSCCs()).equals(expected);
+                    egonets &= sameEgonets(g, h);
+                    distances &= sameDistances(g, h);
+                }
+            } finally {
+                store.delete();
+            }
+        }
+        check("exports match CapGraph, in memory and reopened", exports);
+        check("getSCCs matches CapGraph", sccs);
+        check("getEgonet matches CapGraph", egonets);
+        check("bfs matches a search of the CSR snapshot", distances);
+
+        check("a lone minus sign is rejected", rejects("1 2\n3 -\n"));
+        check("letters inside a value are rejected", rejects("1 2\n3 4x\n"));
+        check("a value past the int range is rejected", rejects("1 2147483648\n"));
+        check("a pair cut short is rejected", rejects("1 2\n3\n"));
+        check("negative ids and the int range still load",
+                loads("-1 -2147483648\n2147483647 -1\n", 3, 2));
+    }
+
+    private static boolean sameEgonets(CapGraph g, OffHeapGraph h) {
+        int count = 0;
+        for (int center : g.getVertices().keySet()) {
+            if (count++ % 50 == 0
+                    && !h.getEgonet(center).exportGraph().equals(g.getEgonet(center).exportGraph())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Dense indices of both ascend by id, so the distances line up.
+    private static boolean sameDistances(CapGraph g, OffHeapGraph h) {
+        CSRGraph csr = CSRGraph.fromCapGraph(g);
+        for (int source = 0; source < csr.size(); source += 1 + csr.size() / 5) {
+            int[] dist = h.bfs(csr.id(source));
+            int[] expected = new int[csr.size()];
+            Arrays.fill(expected, -1);
+            int[] queue = new int[csr.size()];
+            int head = 0;
+            int tail = 0;
+            expected[source] = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int v : csr.neighbors(u)) {
+                    if (expected[v] == -1) {
+                        expected[v] = expected[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            if (!Arrays.equals(dist, expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String components(List<Graph> sccs) {
+        List<String> ret = new ArrayList<String>();
+        for (Graph scc : sccs) {
+            ret.add(new TreeSet<Integer>(scc.exportGraph().keySet()).toString());
+        }
+        Collections.sort(ret);
+        return ret.toString();
+    }
+
+    private static boolean rejects(String contents) throws IOException {
+        File file = write(contents);
+        try {
+            OffHeapGraph.load(file.getPath(), null);
+            return false;
+        } catch (IOException e) {
+            return true;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static boolean loads(String contents, int n, long m) throws IOException {
+        File file = write(contents);
+        try {
+            OffHeapGraph h = OffHeapGraph.load(file.getPath(), null);
+            return h.size() == n && h.edgeCount() == m && h.indexOf(Integer.MIN_VALUE) == 0
+                    && h.indexOf(Integer.MAX_VALUE) == n - 1;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File write(String contents) throws IOException {
+        File file = File.createTempFile("edges", ".txt");
+        try (PrintWriter w = new PrintWriter(file)) {
+            w.print(contents);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Checks Triangles against a brute-force count over every vertex triple,
+ * in both modes and with every merge kernel, on small random graphs and
+ * on the egonets of a real graph.
+ *
+ */
+
+package graph.grader;
+
+import java.util.Random;
+import graph.CSRGraph;
+import graph.CapGraph;
+import graph.Intersect;
+import graph.Triangles;
+import util.GraphLoader;
+
+public class TrianglesGrader extends CheckGrader {
+
+    public static void main(String[] args) {
+        new TrianglesGrader().grade();
+    }
+
+    @Override
+    protected void runChecks() {
+        Random rng = new Random(30);
+        boolean totals = true;
+        boolean perVertex = true;
+        boolean clustering = true;
+        for (int trial = 0; trial < 100; trial++) {
+            CSRGraph g = randomGraph(1 + rng.nextInt(40), rng.nextDouble(), rng);
+            totals &= agrees(g, true, false, false);
+            perVertex &= agrees(g, false, true, false);
+            clustering &= agrees(g, false, false, true);
+        }
+        check("totals match brute force on random graphs", totals);
+        check("per-vertex counts match brute force on random graphs", perVertex);
+        check("clustering coefficients match brute force on random graphs", clustering);
+
+        // hubs of very different degree take the galloping paths
+        CapGraph fb = new CapGraph();
+        GraphLoader.loadGraph(fb, "data/facebook_1000.txt");
+        boolean egonets = true;
+        int count = 0;
+        for (int center : fb.getVertices().keySet()) {
+            if (count++ % 25 != 0) {
+                continue;
+            }
+            egonets &= agrees(CSRGraph.egonet(fb, center, true), true, true, false);
+        }
+        check("counts match brute force on egonets", egonets);
+
+        CSRGraph empty = randomGraph(5, 0, rng);
+        check("a graph without edges has no triangles",
+                new Triangles(empty).total() == 0 && new Triangles(empty).clustering(0) == 0);
+    }
+
+    // Compares every mode and kernel against brute force on g.
+    private static boolean agrees(CSRGraph g, boolean total, boolean perVertex, boolean clustering) {
+        int n = g.size();
+        long[] expected = new long[n];
+        long expectedTotal = bruteForce(g, expected);
+        Intersect.Kernel[] kernels = { Intersect.MERGE, Intersect.GALLOP, Intersect.BLOCK, Intersect.ADAPTIVE };
+        boolean ok = true;
+        for (Triangles.Mode mode : Triangles.Mode.values()) {
+            for (Intersect.Kernel kernel : kernels) {
+                Triangles t = new Triangles(g).setKernel(kernel);
+                long found = t.count(mode);
+                if (total) {
+                    ok &= found == expectedTotal && t.total() == expectedTotal;
+                }
+                for (int u = 0; u < n; u++) {
+                    if (perVertex) {
+                        ok &= t.triangles(u) == expected[u];
+                    }
+                    if (clustering) {
+                        long d = g.degree(u);
+                        double c = d < 2 ? 0 : 2.0 * expected[u] / (d * (d - 1));
+                        ok &= Math.abs(t.clustering(u) - c) < 1e-12;
+                    }
+                }
+            }
+        }
+        return ok;
+    }
+
+    // Tests every triple u < v < w; fills the count through each vertex.
+    private static long bruteForce(CSRGraph g, long[] through) {
+        int n = g.size();
+        boolean[][] adj = new boolean[n][n];
+        for (int u = 0; u < n; u++) {
+            for (int v : g.neighbors(u)) {
+                adj[u][v] = true;
+            }
+        }
+        long total = 0;
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                if (!adj[u][v]) {
+                    continue;
+                }
+                for (int w = v + 1; w < n; w++) {
+                    if (adj[u][w] && adj[v][w]) {
+                        through[u]++;
+                        through[v]++;
+                        through[w]++;
+                        total++;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
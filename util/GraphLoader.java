@@ -7,9 +7,7 @@
 package util;
 
 import java.io.File;
-import java.util.HashSet;
 import java.util.Scanner;
-import java.util.Set;
 
 public class GraphLoader {
     /**
@@ -18,7 +16,8 @@ public class GraphLoader {
      * to a "from" vertex and a "to" vertex.
      */ 
     public static void loadGraph(graph.Graph g, String filename) {
-        Set<Integer> seen = new HashSet<Integer>();
+        // primitive set of the ids added so far, so nothing is boxed
+        IntHashSet seen = new IntHashSet();
         Scanner sc;
         try {
             sc = new Scanner(new File(filename));
@@ -31,13 +30,11 @@ public class GraphLoader {
         while (sc.hasNextInt()) {
             int v1 = sc.nextInt();
             int v2 = sc.nextInt();
-            if (!seen.contains(v1)) {
+            if (seen.add(v1)) {
                 g.addVertex(v1);
-                seen.add(v1);
             }
-            if (!seen.contains(v2)) {
+            if (seen.add(v2)) {
                 g.addVertex(v2);
-                seen.add(v2);
             }
             g.addEdge(v1, v2);
         }
@@ -0,0 +1,162 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive ints with open addressing and linear probing, for
+ * use where a HashSet<Integer> would box every element. Removal shifts
+ * later entries back, so no tombstones are left behind.
+ */
+public class IntHashSet {
+    private int[] keys;
+    private boolean[] used;
+    private int size = 0;
+
+    public IntHashSet() {
+        this(8);
+    }
+
+    public IntHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2) * 2;
+        keys = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return find(value) >= 0;
+    }
+
+    /* Returns true if the value was not in the set yet. */
+    public boolean add(int value) {
+        int mask = keys.length - 1;
+        int h = hash(value) & mask;
+        while (used[h]) {
+            if (keys[h] == value) {
+                return false;
+            }
+            h = (h + 1) & mask;
+        }
+        keys[h] = value;
+        used[h] = true;
+        size++;
+        if (2 * size > keys.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int hole = find(value);
+        if (hole < 0) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            // move i into the hole unless its home lies between them
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                hole = i;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /* The elements in no particular order. */
+    public int[] toArray() {
+        int[] ret = new int[size];
+        int j = 0;
+        for (int h = 0; h < keys.length; h++) {
+            if (used[h]) {
+                ret[j++] = keys[h];
+            }
+        }
+        return ret;
+    }
+
+    private int find(int value) {
+        int mask = keys.length - 1;
+        for (int h = hash(value) & mask; used[h]; h = (h + 1) & mask) {
+            if (keys[h] == value) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new int[2 * oldKeys.length];
+        used = new boolean[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int h = hash(oldKeys[i]) & mask;
+                while (used[h]) {
+                    h = (h + 1) & mask;
+                }
+                keys[h] = oldKeys[i];
+                used[h] = true;
+            }
+        }
+    }
+
+    /* The hash shared by the primitive int tables in util and graph. */
+    public static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IntHashSet)) {
+            return false;
+        }
+        IntHashSet other = (IntHashSet) o;
+        if (other.size != size) {
+            return false;
+        }
+        for (int h = 0; h < keys.length; h++) {
+            if (used[h] && !other.contains(keys[h])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // same as a HashSet<Integer> with the same elements
+        int h = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                h += keys[i];
+            }
+        }
+        return h;
+    }
+
+    /* Sorted, in the format of AbstractCollection.toString. */
+    @Override
+    public String toString() {
+        int[] values = toArray();
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+}
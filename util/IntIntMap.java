@@ -0,0 +1,148 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive int keys to primitive int values with open
+ * addressing and linear probing, for use where a HashMap<Integer,
+ * Integer> would box both. get returns a caller-chosen missing value
+ * for absent keys instead of null.
+ */
+public class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+    private final int missing;
+
+    public IntIntMap() {
+        this(8, -1);
+    }
+
+    public IntIntMap(int expected, int missing) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        this.missing = missing;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /* The value of key, or the missing value given at construction. */
+    public int get(int key) {
+        int h = find(key);
+        return h < 0 ? missing : values[h];
+    }
+
+    /* Returns the previous value of key, or the missing value. */
+    public int put(int key, int value) {
+        int mask = keys.length - 1;
+        int h = IntHashSet.hash(key) & mask;
+        while (used[h]) {
+            if (keys[h] == key) {
+                int old = values[h];
+                values[h] = value;
+                return old;
+            }
+            h = (h + 1) & mask;
+        }
+        keys[h] = key;
+        values[h] = value;
+        used[h] = true;
+        size++;
+        if (2 * size > keys.length) {
+            rehash();
+        }
+        return missing;
+    }
+
+    /* Adds delta to the value of key, starting from 0 if absent. */
+    public int increment(int key, int delta) {
+        int h = find(key);
+        if (h < 0) {
+            put(key, delta);
+            return delta;
+        }
+        values[h] += delta;
+        return values[h];
+    }
+
+    public int remove(int key) {
+        int hole = find(key);
+        if (hole < 0) {
+            return missing;
+        }
+        int old = values[hole];
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = IntHashSet.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /* The keys in no particular order. */
+    public int[] keys() {
+        int[] ret = new int[size];
+        int j = 0;
+        for (int h = 0; h < keys.length; h++) {
+            if (used[h]) {
+                ret[j++] = keys[h];
+            }
+        }
+        return ret;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int h = IntHashSet.hash(key) & mask; used[h]; h = (h + 1) & mask) {
+            if (keys[h] == key) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[2 * oldKeys.length];
+        values = new int[keys.length];
+        used = new boolean[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int h = IntHashSet.hash(oldKeys[i]) & mask;
+                while (used[h]) {
+                    h = (h + 1) & mask;
+                }
+                keys[h] = oldKeys[i];
+                values[h] = oldValues[i];
+                used[h] = true;
+            }
+        }
+    }
+}
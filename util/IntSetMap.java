@@ -0,0 +1,82 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to IntHashSets, the primitive counterpart of the
+ * HashMap<Integer, HashSet<Integer>> that Graph.exportGraph returns.
+ * Keys are kept in insertion order.
+ */
+public class IntSetMap {
+    private final IntIntMap slots;
+    private final IntArrayList keys;
+    private IntHashSet[] sets;
+
+    public IntSetMap() {
+        this(16);
+    }
+
+    public IntSetMap(int expected) {
+        slots = new IntIntMap(expected, -1);
+        keys = new IntArrayList(expected);
+        sets = new IntHashSet[Math.max(expected, 4)];
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean containsKey(int key) {
+        return slots.containsKey(key);
+    }
+
+    /* The set of key, or null. */
+    public IntHashSet get(int key) {
+        int slot = slots.get(key);
+        return slot < 0 ? null : sets[slot];
+    }
+
+    public void put(int key, IntHashSet set) {
+        int slot = slots.get(key);
+        if (slot < 0) {
+            slot = keys.size();
+            slots.put(key, slot);
+            keys.add(key);
+            if (slot == sets.length) {
+                sets = Arrays.copyOf(sets, 2 * slot);
+            }
+        }
+        sets[slot] = set;
+    }
+
+    /* The keys in insertion order. */
+    public IntArrayList keys() {
+        return keys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IntSetMap)) {
+            return false;
+        }
+        IntSetMap other = (IntSetMap) o;
+        if (other.size() != size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!sets[i].equals(other.get(keys.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            h += keys.get(i) ^ sets[i].hashCode();
+        }
+        return h;
+    }
+}